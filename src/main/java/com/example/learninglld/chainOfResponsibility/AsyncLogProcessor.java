@@ -0,0 +1,258 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.io.BufferedOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Front of a log chain that hands messages to background threads. log() only copies the level
+    and message into a slot of a LogRingBuffer, so the caller never waits for formatting or I/O.
+
+    Consumer threads take published messages in batches of up to maxBatchSize and pass each one
+    to the wrapped chain. The chain writes into a buffered stream, which is flushed once per
+    batch instead of once per line. With more than one consumer, messages from different batches
+    may be written out of order. Each message keeps the time it was logged, taken on the caller
+    thread, so binary records carry that time however long they waited in the ring.
+
+    Templated messages are stored unformatted, with their arguments, and formatted on the
+    consumer thread. The arguments must therefore not change after they are logged.
+
+    When the ring is full the BackpressurePolicy decides between waiting, dropping and sampling.
+    Idle consumers park for a short while, so an idle logger costs no CPU.
+ */
+public class AsyncLogProcessor extends LogProcessor implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = 100_000;
+    private static final int OUTPUT_BUFFER_BYTES = 1 << 16;
+
+    private final LogProcessor delegate;
+    private final LogRingBuffer ringBuffer;
+    private final BackpressurePolicy backpressurePolicy;
+    private final int sampleRate;
+    private final int maxBatchSize;
+    private final List<Thread> consumers = new ArrayList<>();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    // callers inside publish(); consumers keep running until it is zero after close()
+    private final AtomicInteger activeProducers = new AtomicInteger();
+    private volatile boolean closed;
+
+    AsyncLogProcessor(AsyncLogProcessorBuilder builder) {
+        super(null);
+        this.delegate = builder.delegate;
+        this.ringBuffer = new LogRingBuffer(builder.bufferSize, builder.consumerThreads);
+        this.backpressurePolicy = builder.backpressurePolicy;
+        this.sampleRate = builder.sampleRate;
+        this.maxBatchSize = builder.maxBatchSize;
+        setOutput(delegate.out, delegate.binaryWriter);
+        for(int i = 0; i < builder.consumerThreads; i++) {
+            int consumer = i;
+            Thread thread = new Thread(() -> consume(consumer), "async-log-" + i);
+            thread.setDaemon(true);
+            consumers.add(thread);
+            thread.start();
+        }
+    }
+
+    public static AsyncLogProcessorBuilder builder(LogProcessor delegate) {
+        return new AsyncLogProcessorBuilder(delegate);
+    }
+
+    // the time is taken here, on the caller thread, so records are stamped when they were logged, not written
+    @Override
+    public void log(Integer logger, String message) {
+        publish(logger, now(), message, null, null);
+    }
+
+    // the template and arguments are passed on as they are and formatted, if at all, on a consumer thread
+    @Override
+    public void log(int level, LogTemplate template, Object... args) {
+        publish(level, now(), null, template, args);
+    }
+
+    @Override
+    void log(int level, long millis, LogTemplate template, Object[] args) {
+        publish(level, millis, null, template, args);
+    }
+
+    // the ring keeps arguments as an array, so here one is made after all
+    @Override
+    void logFixed(int level, long millis, LogTemplate template, int count, Object first, Object second) {
+        publish(level, millis, null, template, count == 1 ? new Object[]{first} : new Object[]{first, second});
+    }
+
+    @Override
+    void log(int level, long millis, String message) {
+        publish(level, millis, message, null, null);
+    }
+
+    // levels the wrapped chain writes are written asynchronously
+    @Override
+    boolean handles(int level) {
+        for(LogProcessor processor = delegate; processor != null; processor = processor.nextProcessor) {
+            if(processor.handles(level)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // waits until every message logged so far has been written and flushed
+    @Override
+    public void flush() {
+        long published = ringBuffer.getCursor() + 1;
+        int idle = 0;
+        while(writtenCount.sum() < published && !consumersStopped()) {
+            idle = backOff(idle);
+        }
+    }
+
+    // writes out the messages already logged, then stops the consumer threads
+    @Override
+    public void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        for(Thread consumer : consumers) {
+            LockSupport.unpark(consumer);
+        }
+        for(Thread consumer : consumers) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        delegate.flush();
+    }
+
+    // the chain writes into a buffer over out that the consumers flush once per batch; set it before logging
+    @Override
+    void setOutput(PrintStream out, BinaryLogWriter binaryWriter) {
+        this.out = out;
+        // not written to here, but setOutput(PrintStream) reads the format from it
+        this.binaryWriter = binaryWriter;
+        PrintStream buffered = new PrintStream(new BufferedOutputStream(out, OUTPUT_BUFFER_BYTES), false);
+        delegate.setOutput(buffered, binaryWriter == null ? null : new BinaryLogWriter(buffered));
+    }
+
+    // messages discarded by the DROP and SAMPLE policies
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    // messages logged but not yet written
+    public long getPendingCount() {
+        return ringBuffer.getCursor() + 1 - writtenCount.sum();
+    }
+
+    /*
+        A producer registers before it checks closed. A consumer stops only when it sees closed and
+        no producer registered, so a producer that saw the logger open always finds consumers to
+        take its message, even if close() is called meanwhile.
+     */
+    private void publish(int level, long millis, String message, LogTemplate template, Object[] args) {
+        activeProducers.incrementAndGet();
+        try {
+            if(!closed) {
+                long sequence = ringBuffer.tryClaim();
+                if(sequence < 0) {
+                    if(backpressurePolicy == BackpressurePolicy.DROP
+                            || (backpressurePolicy == BackpressurePolicy.SAMPLE && sampleCounter.getAndIncrement() % sampleRate != 0)) {
+                        droppedCount.increment();
+                        return;
+                    }
+                    sequence = claimWaiting();
+                }
+                ringBuffer.publish(sequence, level, millis, message, template, args);
+                return;
+            }
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+        // the consumers are gone; write through on the caller thread
+        dispatch(level, millis, message, template, args);
+        delegate.flush();
+    }
+
+    private void dispatch(int level, long millis, String message, LogTemplate template, Object[] args) {
+        if(template != null) {
+            delegate.log(level, millis, template, args);
+        }
+        else {
+            delegate.log(level, millis, message);
+        }
+    }
+
+    private long claimWaiting() {
+        int idle = 0;
+        while(true) {
+            long sequence = ringBuffer.tryClaim();
+            if(sequence >= 0) {
+                return sequence;
+            }
+            idle = backOff(idle);
+        }
+    }
+
+    private void consume(int consumer) {
+        int idle = 0;
+        while(true) {
+            long highest = ringBuffer.claimBatch(consumer, maxBatchSize);
+            long start = ringBuffer.consumerSequence(consumer) + 1;
+            if(highest < start) {
+                // stop only once no producer can still claim, and every claimed sequence has been published and taken
+                if(closed && activeProducers.get() == 0 && ringBuffer.getWorkSequence() == ringBuffer.getCursor()) {
+                    return;
+                }
+                idle = backOff(idle);
+                continue;
+            }
+            idle = 0;
+            for(long sequence = start; sequence <= highest; sequence++) {
+                try {
+                    dispatch(ringBuffer.level(sequence), ringBuffer.timestamp(sequence), ringBuffer.takeMessage(sequence),
+                            ringBuffer.takeTemplate(sequence), ringBuffer.takeArgs(sequence));
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            delegate.flush();
+            writtenCount.add(highest - start + 1);
+        }
+    }
+
+    private boolean consumersStopped() {
+        for(Thread consumer : consumers) {
+            if(consumer.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // spin, then yield, then park
+    private static int backOff(int idle) {
+        if(idle < 100) {
+            Thread.onSpinWait();
+        }
+        else if(idle < 200) {
+            Thread.yield();
+        }
+        else {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return idle + 1;
+    }
+}
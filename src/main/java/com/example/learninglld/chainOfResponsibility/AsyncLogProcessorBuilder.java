@@ -0,0 +1,52 @@
+package com.example.learninglld.chainOfResponsibility;
+
+public class AsyncLogProcessorBuilder {
+    final LogProcessor delegate;
+    int bufferSize = 1 << 16;
+    int consumerThreads = 1;
+    int maxBatchSize = 1024;
+    BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+    int sampleRate = 100;
+
+    AsyncLogProcessorBuilder(LogProcessor delegate) {
+        this.delegate = delegate;
+    }
+
+    // slots in the ring buffer; must be a power of two
+    public AsyncLogProcessorBuilder setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public AsyncLogProcessorBuilder setConsumerThreads(int consumerThreads) {
+        this.consumerThreads = consumerThreads;
+        return this;
+    }
+
+    // most messages a consumer writes before flushing the output
+    public AsyncLogProcessorBuilder setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public AsyncLogProcessorBuilder setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+        this.backpressurePolicy = backpressurePolicy;
+        return this;
+    }
+
+    // with BackpressurePolicy.SAMPLE, one message in sampleRate is kept while the buffer is full
+    public AsyncLogProcessorBuilder setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    public AsyncLogProcessor build() {
+        if(Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalStateException("bufferSize must be a power of two: " + bufferSize);
+        }
+        if(consumerThreads <= 0 || maxBatchSize <= 0 || sampleRate <= 0) {
+            throw new IllegalStateException("consumer threads, batch size and sample rate must be positive");
+        }
+        return new AsyncLogProcessor(this);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.learninglld.chainOfResponsibility;
+
+// what AsyncLogProcessor does with a message when its ring buffer is full
+public enum BackpressurePolicy {
+    // the logging thread waits for a free slot; nothing is lost
+    BLOCK,
+    // the message is discarded and counted
+    DROP,
+    // one message in every sampleRate waits for a slot, the others are discarded
+    SAMPLE
+}
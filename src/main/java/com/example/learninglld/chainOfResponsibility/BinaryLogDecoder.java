@@ -0,0 +1,247 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Turns the records written in LogFormat.BINARY back into readable lines, offline:
+        2024-05-01T10:15:30.123Z INFO: request 42 served in 7 ms
+    or, with --json, one JSON object per record holding the timestamp, the level, the formatted
+    message and, for templated records, the template and the raw arguments.
+
+    A header inside a stream starts a new stream, so files appended to each other, or output
+    whose format was set more than once, decode as well. A record cut off at the end, e.g. by a
+    crash, is reported on stderr; everything before it is decoded.
+
+        java -cp target/classes com.example.learninglld.chainOfResponsibility.BinaryLogDecoder [--json] file...
+ */
+public class BinaryLogDecoder {
+    private final PrintStream out;
+    private final boolean json;
+
+    public BinaryLogDecoder(PrintStream out, boolean json) {
+        this.out = out;
+        this.json = json;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean json = false;
+        List<Path> files = new ArrayList<>();
+        for(String arg : args) {
+            if(arg.equals("--json")) {
+                json = true;
+            }
+            else {
+                files.add(Path.of(arg));
+            }
+        }
+        if(files.isEmpty()) {
+            System.err.println("usage: BinaryLogDecoder [--json] file...");
+            System.exit(2);
+        }
+        BinaryLogDecoder decoder = new BinaryLogDecoder(System.out, json);
+        for(Path file : files) {
+            try(InputStream in = Files.newInputStream(file)) {
+                long records = decoder.decode(in);
+                if(records < 0) {
+                    System.err.println(file + ": truncated after " + (-records - 1) + " records");
+                }
+            }
+        }
+        System.out.flush();
+    }
+
+    /*
+        Decodes every record in the stream and returns how many there were, or -(count + 1) if
+        the last record was cut off. Throws IOException if the stream is not in the binary format.
+     */
+    public long decode(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        Map<Integer, String> templates = new HashMap<>();
+        long records = 0;
+        int type = in.read();
+        if(type < 0) {
+            return 0;
+        }
+        try {
+            while(type >= 0) {
+                switch (type) {
+                    case 'L' -> {
+                        readHeader(in);
+                        templates.clear();
+                    }
+                    case BinaryLogWriter.TEMPLATE -> {
+                        int id = readVarint(in);
+                        templates.put(id, readString(in));
+                    }
+                    case BinaryLogWriter.EVENT -> {
+                        int level = in.readUnsignedByte();
+                        long millis = in.readLong();
+                        int id = readVarint(in);
+                        Object[] args = new Object[readVarint(in)];
+                        for(int i = 0; i < args.length; i++) {
+                            args[i] = readArgument(in);
+                        }
+                        String pattern = templates.get(id);
+                        if(pattern == null) {
+                            throw new IOException("event refers to undefined template " + id);
+                        }
+                        print(level, millis, LogTemplate.of(pattern).format(args), pattern, args);
+                        records++;
+                    }
+                    case BinaryLogWriter.MESSAGE -> {
+                        int level = in.readUnsignedByte();
+                        long millis = in.readLong();
+                        print(level, millis, readString(in), null, null);
+                        records++;
+                    }
+                    default -> throw new IOException("unknown record type " + type);
+                }
+                type = in.read();
+            }
+        } catch (EOFException e) {
+            return -(records + 1);
+        }
+        return records;
+    }
+
+    private static void readHeader(DataInputStream in) throws IOException {
+        for(int i = 1; i < BinaryLogWriter.MAGIC.length; i++) {
+            if(in.readUnsignedByte() != BinaryLogWriter.MAGIC[i]) {
+                throw new IOException("not a binary log");
+            }
+        }
+        int version = in.readUnsignedByte();
+        if(version != BinaryLogWriter.VERSION) {
+            throw new IOException("unsupported binary log version " + version);
+        }
+    }
+
+    private void print(int level, long millis, String message, String pattern, Object[] args) {
+        Instant timestamp = Instant.ofEpochMilli(millis);
+        if(!json) {
+            out.println(timestamp + " " + LogProcessor.levelName(level) + ": " + message);
+            return;
+        }
+        StringBuilder line = new StringBuilder(64 + message.length());
+        line.append("{\"timestamp\":\"").append(timestamp)
+                .append("\",\"level\":\"").append(LogProcessor.levelName(level))
+                .append("\",\"message\":");
+        appendJson(line, message);
+        if(pattern != null) {
+            line.append(",\"template\":");
+            appendJson(line, pattern);
+            line.append(",\"args\":[");
+            for(int i = 0; i < args.length; i++) {
+                if(i > 0) {
+                    line.append(',');
+                }
+                Object arg = args[i];
+                if(arg == null || arg instanceof Boolean || arg instanceof Integer || arg instanceof Long) {
+                    line.append(arg);
+                }
+                else if(arg instanceof Double || arg instanceof Float) {
+                    // JSON has no NaN or Infinity
+                    double value = ((Number) arg).doubleValue();
+                    if(Double.isFinite(value)) {
+                        line.append(arg);
+                    }
+                    else {
+                        appendJson(line, arg.toString());
+                    }
+                }
+                else {
+                    appendJson(line, arg.toString());
+                }
+            }
+            line.append(']');
+        }
+        out.println(line.append('}'));
+    }
+
+    private static void appendJson(StringBuilder line, String value) {
+        line.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if(c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private static Object readArgument(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        return switch (tag) {
+            case BinaryLogWriter.NULL -> null;
+            case BinaryLogWriter.INT -> {
+                int value = readVarint(in);
+                yield (value >>> 1) ^ -(value & 1);
+            }
+            case BinaryLogWriter.LONG -> {
+                long value = readVarlong(in);
+                yield (value >>> 1) ^ -(value & 1);
+            }
+            case BinaryLogWriter.DOUBLE -> in.readDouble();
+            case BinaryLogWriter.FLOAT -> in.readFloat();
+            case BinaryLogWriter.BOOLEAN -> in.readUnsignedByte() != 0;
+            case BinaryLogWriter.STRING -> readString(in);
+            case BinaryLogWriter.CHAR -> (char) readVarint(in);
+            default -> throw new IOException("unknown argument type " + tag);
+        };
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarint(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static long readVarlong(DataInputStream in) throws IOException {
+        long value = 0;
+        for(int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+}
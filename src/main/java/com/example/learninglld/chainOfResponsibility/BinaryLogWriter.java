@@ -0,0 +1,233 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/*
+    Writes log records in the format BinaryLogDecoder reads. A stream starts with the header
+    "LOGB" and a version byte, then holds records, each starting with a type byte:
+        'T' template     varint id, varint length, UTF-8 pattern
+        'E' event        level byte, 8 byte epoch millis, varint template id, varint argument
+                         count, tagged arguments
+        'M' message      level byte, 8 byte epoch millis, string
+    A template is defined once, before the first event that uses it, so an event costs a few
+    bytes for the template however long its pattern is. Integers are zigzag varints, so small
+    numbers take one byte. Arguments of other types are written as their toString().
+
+    A record is encoded into a reused array and written with one call, so records of concurrent
+    callers never interleave.
+ */
+final class BinaryLogWriter {
+    static final byte[] MAGIC = {'L', 'O', 'G', 'B'};
+    static final int VERSION = 1;
+
+    static final byte TEMPLATE = 'T';
+    static final byte EVENT = 'E';
+    static final byte MESSAGE = 'M';
+
+    static final int NULL = 0;
+    static final int INT = 1;
+    static final int LONG = 2;
+    static final int DOUBLE = 3;
+    static final int FLOAT = 4;
+    static final int BOOLEAN = 5;
+    static final int STRING = 6;
+    static final int CHAR = 7;
+
+    private final OutputStream out;
+    // templates already defined in this stream, by id
+    private final BitSet written = new BitSet();
+    // the header and every template definition written so far; replaced, never changed
+    private volatile byte[] preamble = new byte[0];
+    private boolean headerWritten;
+    private byte[] buffer = new byte[256];
+    private int position;
+
+    BinaryLogWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    // millis is when the event was logged, which may be well before it is written
+    synchronized void writeEvent(int level, long millis, LogTemplate template, Object[] args) {
+        startEvent(level, millis, template, args.length);
+        for(Object arg : args) {
+            putArgument(arg);
+        }
+        send();
+    }
+
+    // the first count (one or two) of first and second as arguments, for callers without an array
+    synchronized void writeEvent(int level, long millis, LogTemplate template, int count, Object first, Object second) {
+        startEvent(level, millis, template, count);
+        putArgument(first);
+        if(count == 2) {
+            putArgument(second);
+        }
+        send();
+    }
+
+    synchronized void writeMessage(int level, long millis, String message) {
+        position = 0;
+        header();
+        putByte(MESSAGE);
+        putByte(level);
+        putLong(millis);
+        putString(message);
+        send();
+    }
+
+    // everything of an event record up to its arguments, defining template first if needed
+    private void startEvent(int level, long millis, LogTemplate template, int argumentCount) {
+        position = 0;
+        header();
+        if(!written.get(template.getId())) {
+            int start = position;
+            putByte(TEMPLATE);
+            putVarint(template.getId());
+            putString(template.getPattern());
+            written.set(template.getId());
+            addToPreamble(start);
+        }
+        putByte(EVENT);
+        putByte(level);
+        putLong(millis);
+        putVarint(template.getId());
+        putVarint(argumentCount);
+    }
+
+    /*
+        The header and every template defined so far, for a sink that continues this stream in a
+        new file: records written later assume those templates are known. Empty if no record has
+        been written yet, since the first record brings its own header. Takes no lock, so a sink
+        may call it while a writer waits on that sink.
+     */
+    byte[] preamble() {
+        return preamble;
+    }
+
+    private void header() {
+        if(!headerWritten) {
+            for(byte b : MAGIC) {
+                putByte(b);
+            }
+            putByte(VERSION);
+            headerWritten = true;
+            addToPreamble(0);
+        }
+    }
+
+    // appends buffer[start, position) to the preamble
+    private void addToPreamble(int start) {
+        byte[] current = preamble;
+        byte[] extended = Arrays.copyOf(current, current.length + position - start);
+        System.arraycopy(buffer, start, extended, current.length, position - start);
+        preamble = extended;
+    }
+
+    private void putArgument(Object arg) {
+        if(arg == null) {
+            putByte(NULL);
+        }
+        else if(arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+            putByte(INT);
+            putVarint(zigzag(((Number) arg).intValue()));
+        }
+        else if(arg instanceof Long value) {
+            putByte(LONG);
+            putVarlong((value << 1) ^ (value >> 63));
+        }
+        else if(arg instanceof Double value) {
+            putByte(DOUBLE);
+            putLong(Double.doubleToRawLongBits(value));
+        }
+        else if(arg instanceof Float value) {
+            putByte(FLOAT);
+            putInt(Float.floatToRawIntBits(value));
+        }
+        else if(arg instanceof Boolean value) {
+            putByte(BOOLEAN);
+            putByte(value ? 1 : 0);
+        }
+        else if(arg instanceof Character value) {
+            putByte(CHAR);
+            putVarint(value);
+        }
+        else {
+            putByte(STRING);
+            putString(String.valueOf(arg));
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarint(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void putVarint(int value) {
+        ensure(5);
+        while((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void putVarlong(long value) {
+        ensure(10);
+        while((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void putLong(long value) {
+        ensure(8);
+        for(int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void putInt(int value) {
+        ensure(4);
+        for(int shift = 24; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void putByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensure(int bytes) {
+        if(position + bytes > buffer.length) {
+            byte[] larger = new byte[Math.max(buffer.length * 2, position + bytes)];
+            System.arraycopy(buffer, 0, larger, 0, position);
+            buffer = larger;
+        }
+    }
+
+    private void send() {
+        try {
+            out.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // don't keep a buffer grown for one huge record
+        if(buffer.length > 1 << 16) {
+            buffer = new byte[256];
+        }
+    }
+}
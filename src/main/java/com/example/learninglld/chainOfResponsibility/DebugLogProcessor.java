@@ -4,9 +4,15 @@ public class DebugLogProcessor extends LogProcessor {
     DebugLogProcessor(LogProcessor nextProcessor) {
         super(nextProcessor);
     }
+
+    @Override
+    boolean handles(int level) {
+        return level == DEBUG;
+    }
+
     public void log(Integer logger, String message) {
-        if(logger == DEBUG) {
-            System.out.println("DEBUG: " + message);
+        if(handles(logger)) {
+            write(DEBUG, message);
         }
         else {
             super.log(logger, message);
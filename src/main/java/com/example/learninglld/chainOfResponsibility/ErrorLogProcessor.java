@@ -4,9 +4,15 @@ public class ErrorLogProcessor extends LogProcessor {
     ErrorLogProcessor(LogProcessor nextProcessor) {
         super(nextProcessor);
     }
+
+    @Override
+    boolean handles(int level) {
+        return level == ERROR;
+    }
+
     public void log(Integer logger, String message) {
-        if(logger == ERROR) {
-            System.out.println("ERROR: " + message);
+        if(handles(logger)) {
+            write(ERROR, message);
         }
         else {
             super.log(logger, message);
@@ -0,0 +1,126 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/*
+    Throughput and caller latency of RollingFileLogProcessor in a temporary directory:
+        burst    BURST_MESSAGES messages logged as fast as one thread can
+        paced    one message every microsecond (1M messages/s) for PACED_SECONDS
+    Files roll every 16 MB and rolled files are gzipped in the background. Afterwards the
+    lines in all files, rolled and current, are counted to check none were lost.
+
+        java -cp target/classes com.example.learninglld.chainOfResponsibility.FileLogBenchmark
+ */
+public class FileLogBenchmark {
+    private static final int BURST_MESSAGES = 5_000_000;
+    private static final int PACED_SECONDS = 3;
+    private static final String[] MESSAGES = new String[1024];
+
+    static {
+        for(int i = 0; i < MESSAGES.length; i++) {
+            MESSAGES[i] = "request " + i + " served in " + (i % 97) + " ms";
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("file-log-benchmark");
+        try {
+            RollingFileLogProcessor processor = RollingFileLogProcessor.builder(directory)
+                    .setBaseName("benchmark")
+                    .setMaxFileSize(16L << 20)
+                    .setCompressRolledFiles(true)
+                    .setSyncInterval(Duration.ofMillis(100))
+                    .build();
+
+            long[] latencies = new long[BURST_MESSAGES / 64];
+            long start = System.nanoTime();
+            for(int i = 0; i < BURST_MESSAGES; i++) {
+                if((i & 63) == 0) {
+                    long before = System.nanoTime();
+                    processor.log(i % 3 + 1, MESSAGES[i & (MESSAGES.length - 1)]);
+                    latencies[i >> 6] = System.nanoTime() - before;
+                }
+                else {
+                    processor.log(i % 3 + 1, MESSAGES[i & (MESSAGES.length - 1)]);
+                }
+            }
+            long callersDone = System.nanoTime();
+            processor.flush();
+            long written = System.nanoTime();
+            report("burst", BURST_MESSAGES, callersDone - start, written - start, latencies, processor.getStallCount());
+
+            long stallsBefore = processor.getStallCount();
+            int paced = PACED_SECONDS * 1_000_000;
+            latencies = new long[paced / 64];
+            start = System.nanoTime();
+            for(int i = 0; i < paced; i++) {
+                // wait for this message's slot on the 1 µs schedule
+                while(System.nanoTime() - start < i * 1_000L) {
+                    Thread.onSpinWait();
+                }
+                if((i & 63) == 0) {
+                    long before = System.nanoTime();
+                    processor.log(i % 3 + 1, MESSAGES[i & (MESSAGES.length - 1)]);
+                    latencies[i >> 6] = System.nanoTime() - before;
+                }
+                else {
+                    processor.log(i % 3 + 1, MESSAGES[i & (MESSAGES.length - 1)]);
+                }
+            }
+            callersDone = System.nanoTime();
+            processor.flush();
+            written = System.nanoTime();
+            report("paced 1M/s", paced, callersDone - start, written - start, latencies, processor.getStallCount() - stallsBefore);
+
+            processor.close();
+            long lines = countLines(directory);
+            System.out.printf("%,d bytes written, %d files rolled, %,d lines on disk (%s)%n", processor.getBytesWritten(),
+                    processor.getRolledFileCount(), lines, lines == BURST_MESSAGES + paced ? "complete" : "MISSING LINES");
+        } finally {
+            try(Stream<Path> files = Files.list(directory)) {
+                for(Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    static void report(String name, int messages, long callerNanos, long totalNanos, long[] latencies, long stalls) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-12s %,12.0f msgs/s logged  %,12.0f msgs/s on disk  |  call p50 %5d ns  p99.9 %8d ns  max %9d ns  |  %d stalls%n",
+                name, messages * 1e9 / callerNanos, messages * 1e9 / totalNanos, sorted[sorted.length / 2],
+                sorted[(int) (sorted.length * 0.999)], sorted[sorted.length - 1], stalls);
+    }
+
+    static long countLines(Path directory) throws IOException {
+        long lines = 0;
+        List<Path> files;
+        try(Stream<Path> list = Files.list(directory)) {
+            files = list.toList();
+        }
+        for(Path file : files) {
+            try(InputStream in = file.toString().endsWith(".gz") ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file)) {
+                byte[] buffer = new byte[1 << 16];
+                int read;
+                while((read = in.read(buffer)) > 0) {
+                    for(int i = 0; i < read; i++) {
+                        if(buffer[i] == '\n') {
+                            lines++;
+                        }
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+}
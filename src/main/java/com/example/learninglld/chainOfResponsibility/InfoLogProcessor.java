@@ -4,9 +4,15 @@ public class InfoLogProcessor extends LogProcessor {
     InfoLogProcessor(LogProcessor nextProcessor) {
         super(nextProcessor);
     }
+
+    @Override
+    boolean handles(int level) {
+        return level == INFO;
+    }
+
     public void log(Integer logger, String message) {
-        if(logger == INFO) {
-            System.out.println("INFO: " + message);
+        if(handles(logger)) {
+            write(INFO, message);
         }
         else {
            super.log(logger, message);
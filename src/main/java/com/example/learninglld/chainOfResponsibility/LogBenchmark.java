@@ -0,0 +1,105 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/*
+    Caller-side latency and end-to-end throughput of the synchronous chain against
+    AsyncLogProcessor with each backpressure policy, at 1 and 4 logging threads.
+
+    The chain writes to a stream that discards its input, so the numbers show the cost of the
+    pipeline rather than of a terminal. Latency is sampled on every 64th call. Throughput counts
+    messages written (not dropped) per second, up to the moment the last one is flushed.
+
+        java -cp target/classes com.example.learninglld.chainOfResponsibility.LogBenchmark
+ */
+public class LogBenchmark {
+    private static final int MESSAGES_PER_THREAD = 2_000_000;
+    private static final int[] THREAD_COUNTS = {1, 4};
+    private static final String[] MESSAGES = new String[1024];
+
+    static {
+        for(int i = 0; i < MESSAGES.length; i++) {
+            MESSAGES[i] = "request " + i + " served in " + (i % 97) + " ms";
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for(int warmup = 0; warmup < 2; warmup++) {
+            runAll(false);
+        }
+        runAll(true);
+    }
+
+    static void runAll(boolean print) throws InterruptedException {
+        for(int threads : THREAD_COUNTS) {
+            if(print) {
+                System.out.println("---- " + threads + " logging threads ----");
+            }
+            run("synchronous chain", threads, newChain(), print);
+            for(BackpressurePolicy policy : BackpressurePolicy.values()) {
+                AsyncLogProcessor async = AsyncLogProcessor.builder(newChain())
+                        .setBackpressurePolicy(policy)
+                        .build();
+                run("async " + policy, threads, async, print);
+                async.close();
+            }
+        }
+    }
+
+    static LogProcessor newChain() {
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+        chain.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+        return chain;
+    }
+
+    static void run(String name, int threads, LogProcessor processor, boolean print) throws InterruptedException {
+        long[][] samples = new long[threads][MESSAGES_PER_THREAD / 64];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(threads);
+        for(int t = 0; t < threads; t++) {
+            long[] latencies = samples[t];
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for(int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                        Integer level = i % 3 + 1;
+                        String message = MESSAGES[i & (MESSAGES.length - 1)];
+                        if((i & 63) == 0) {
+                            long before = System.nanoTime();
+                            processor.log(level, message);
+                            latencies[i >> 6] = System.nanoTime() - before;
+                        }
+                        else {
+                            processor.log(level, message);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        finished.await();
+        long callersDone = System.nanoTime();
+        processor.flush();
+        long nanos = System.nanoTime() - begin;
+        if(!print) {
+            return;
+        }
+
+        long total = (long) threads * MESSAGES_PER_THREAD;
+        long written = processor instanceof AsyncLogProcessor async ? async.getWrittenCount() : total;
+        long[] sorted = Arrays.stream(samples).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-18s caller %6.0f ns/call  p50 %6d ns  p99 %7d ns  p99.9 %8d ns  |  %,12.0f msgs/s written, %,d dropped%n",
+                name, (double) (callersDone - begin) * threads / total, sorted[sorted.length / 2],
+                sorted[(int) (sorted.length * 0.99)], sorted[(int) (sorted.length * 0.999)],
+                written * 1e9 / nanos, total - written);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.util.function.Supplier;
+
+/*
+    A log chain compiled into a table indexed by level. compile() walks the chain once per level
+    and records the first processor that handles it, which is the processor the chain would have
+    reached. After that a call is one array read and one call to that processor, whatever the
+    length of the chain.
+
+    Levels no processor handles are disabled. isEnabled() is a single array read, and every log
+    method checks it before building the message: suppliers are not called and templates are
+    not formatted for a disabled level. Levels can be switched off and on at runtime with
+    setEnabled(), e.g. to turn DEBUG on in production for a while.
+
+    Templates and their arguments are handed to the processor unformatted, so an
+    AsyncLogProcessor formats them on its consumer threads and BINARY output never formats them.
+ */
+public final class LogDispatcher {
+    // levels 0 to LEVELS - 1 can be dispatched
+    private static final int LEVELS = 16;
+
+    // the handler each level compiles to, kept so a disabled level can be turned back on
+    private final LogProcessor[] compiled = new LogProcessor[LEVELS];
+    // replaced, never modified, so readers need no lock
+    private volatile LogProcessor[] handlers;
+
+    private LogDispatcher(LogProcessor chain) {
+        for(int level = 0; level < LEVELS; level++) {
+            for(LogProcessor processor = chain; processor != null; processor = processor.nextProcessor) {
+                if(processor.handles(level)) {
+                    compiled[level] = processor;
+                    break;
+                }
+            }
+        }
+        handlers = compiled.clone();
+    }
+
+    public static LogDispatcher compile(LogProcessor chain) {
+        return new LogDispatcher(chain);
+    }
+
+    public boolean isEnabled(int level) {
+        return level >= 0 && level < LEVELS && handlers[level] != null;
+    }
+
+    // turns a level off, or back on if the chain has a processor for it
+    public synchronized void setEnabled(int level, boolean enabled) {
+        if(level < 0 || level >= LEVELS) {
+            throw new IllegalArgumentException("level must be between 0 and " + (LEVELS - 1) + ": " + level);
+        }
+        LogProcessor[] updated = handlers.clone();
+        updated[level] = enabled ? compiled[level] : null;
+        handlers = updated;
+    }
+
+    public void log(int level, String message) {
+        LogProcessor handler = handler(level);
+        if(handler != null) {
+            handler.log(level, message);
+        }
+    }
+
+    public void log(int level, Supplier<String> message) {
+        LogProcessor handler = handler(level);
+        if(handler != null) {
+            handler.log(level, message.get());
+        }
+    }
+
+    public void log(int level, LogTemplate template, Object arg) {
+        LogProcessor handler = handler(level);
+        if(handler != null) {
+            handler.log(level, template, arg);
+        }
+    }
+
+    public void log(int level, LogTemplate template, Object first, Object second) {
+        LogProcessor handler = handler(level);
+        if(handler != null) {
+            handler.log(level, template, first, second);
+        }
+    }
+
+    public void log(int level, LogTemplate template, Object... args) {
+        LogProcessor handler = handler(level);
+        if(handler != null) {
+            handler.log(level, template, args);
+        }
+    }
+
+    private LogProcessor handler(int level) {
+        return level >= 0 && level < LEVELS ? handlers[level] : null;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.learninglld.chainOfResponsibility;
+
+// how the processors of a chain write their messages
+public enum LogFormat {
+    // one "LEVEL: message" line per message
+    TEXT,
+    // compact records holding the level, a timestamp, the template id and the raw arguments; see BinaryLogDecoder
+    BINARY
+}
@@ -1,11 +1,18 @@
 package com.example.learninglld.chainOfResponsibility;
 
+import java.io.PrintStream;
+
 public class LogProcessor {
     public static final Integer INFO = 1;
     public static final Integer DEBUG = 2;
     public static final Integer ERROR = 3;
 
     LogProcessor nextProcessor;
+    // where the handlers write their lines; shared by the whole chain
+    PrintStream out = System.out;
+    // set in BINARY format; shared by the whole chain, like out
+    BinaryLogWriter binaryWriter;
+
     LogProcessor(LogProcessor nextProcessor) {
         this.nextProcessor = nextProcessor;
     }
@@ -15,7 +22,137 @@ public class LogProcessor {
             nextProcessor.log(logger, message);
         }
         else {
-            System.out.println("No more processors available");
+            out.println("No more processors available");
+        }
+    }
+
+    /*
+        Logs a message built from template and args. The arguments travel down the chain as they
+        are: only the processor that writes the message formats it, and in BINARY format it is
+        not formatted at all.
+     */
+    public void log(int level, LogTemplate template, Object... args) {
+        log(level, now(), template, args);
+    }
+
+    // the fixed-arity forms, so one or two arguments need no array, to be formatted or encoded
+    public void log(int level, LogTemplate template, Object arg) {
+        logFixed(level, now(), template, 1, arg, null);
+    }
+
+    public void log(int level, LogTemplate template, Object first, Object second) {
+        logFixed(level, now(), template, 2, first, second);
+    }
+
+    // the first count (one or two) of first and second are the arguments
+    void logFixed(int level, long millis, LogTemplate template, int count, Object first, Object second) {
+        if(handles(level)) {
+            if(binaryWriter != null) {
+                binaryWriter.writeEvent(level, millis, template, count, first, second);
+            }
+            else {
+                log(level, count == 1 ? template.format(first) : template.format(first, second));
+            }
+        }
+        else if(nextProcessor != null) {
+            nextProcessor.logFixed(level, millis, template, count, first, second);
+        }
+        else {
+            out.println("No more processors available");
+        }
+    }
+
+    // a templated message logged at millis, e.g. by an AsyncLogProcessor; a binary record keeps that time
+    void log(int level, long millis, LogTemplate template, Object[] args) {
+        if(handles(level)) {
+            if(binaryWriter != null) {
+                binaryWriter.writeEvent(level, millis, template, args);
+            }
+            else {
+                log(level, template.format(args));
+            }
+        }
+        else if(nextProcessor != null) {
+            nextProcessor.log(level, millis, template, args);
+        }
+        else {
+            out.println("No more processors available");
+        }
+    }
+
+    // a message logged at millis; a binary record keeps that time, a text line has none
+    void log(int level, long millis, String message) {
+        LogProcessor handler = this;
+        while(handler != null && !handler.handles(level)) {
+            handler = handler.nextProcessor;
+        }
+        if(handler != null && handler.binaryWriter != null) {
+            handler.binaryWriter.writeMessage(level, millis, message);
+        }
+        else {
+            log(level, message);
+        }
+    }
+
+    // writes a message this processor handles: a "LEVEL: message" line, or a binary record in BINARY format
+    void write(int level, String message) {
+        if(binaryWriter != null) {
+            binaryWriter.writeMessage(level, System.currentTimeMillis(), message);
+        }
+        else {
+            out.println(levelName(level) + ": " + message);
+        }
+    }
+
+    // the time binary records are stamped with; text lines carry none, so TEXT skips the clock
+    long now() {
+        return binaryWriter != null ? System.currentTimeMillis() : 0;
+    }
+
+    // the name a level is written with, e.g. "INFO"
+    static String levelName(int level) {
+        if(level == INFO) {
+            return "INFO";
+        }
+        if(level == DEBUG) {
+            return "DEBUG";
+        }
+        if(level == ERROR) {
+            return "ERROR";
+        }
+        return "LEVEL " + level;
+    }
+
+    // whether this processor itself writes messages of level; LogDispatcher uses it to compile the chain
+    boolean handles(int level) {
+        return false;
+    }
+
+    // sends the output of this processor and every processor after it to out
+    public LogProcessor setOutput(PrintStream out) {
+        setOutput(out, binaryWriter == null ? null : new BinaryLogWriter(out));
+        return this;
+    }
+
+    // TEXT writes "LEVEL: message" lines, BINARY writes records for BinaryLogDecoder; applies to the rest of the chain
+    public LogProcessor setFormat(LogFormat format) {
+        setOutput(out, format == LogFormat.BINARY ? new BinaryLogWriter(out) : null);
+        return this;
+    }
+
+    // the rest of the chain first, so a processor that rejects the output leaves the chain unchanged
+    void setOutput(PrintStream out, BinaryLogWriter binaryWriter) {
+        if(nextProcessor != null) {
+            nextProcessor.setOutput(out, binaryWriter);
+        }
+        this.out = out;
+        this.binaryWriter = binaryWriter;
+    }
+
+    public void flush() {
+        out.flush();
+        if(nextProcessor != null) {
+            nextProcessor.flush();
         }
     }
 }
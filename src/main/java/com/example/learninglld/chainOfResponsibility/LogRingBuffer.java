@@ -0,0 +1,161 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+    Bounded multi-producer, multi-consumer ring of log events, laid out like the LMAX Disruptor.
+    No locks are taken.
+
+    Events are numbered by an ever-growing sequence; event s lives in slot s & mask. The slots
+    are preallocated parallel arrays, so publishing allocates nothing.
+        - a producer claims a sequence by CASing the cursor, fills the slot, then marks it
+          available by storing the sequence in available[slot]
+        - a consumer claims a batch of available sequences by CASing workSequence forward
+        - a producer may not claim sequence s until every consumer is past s - capacity.
+          Each consumer publishes how far it is in its own sequence (gating sequences).
+ */
+final class LogRingBuffer {
+    private final int capacity;
+    private final int mask;
+    private final int[] levels;
+    // epoch millis of when each event was published
+    private final long[] timestamps;
+    private final String[] messages;
+    private final LogTemplate[] templates;
+    private final Object[][] args;
+    private final AtomicLongArray available;
+    // highest sequence claimed by a producer
+    private final AtomicLong cursor = new AtomicLong(-1);
+    // highest sequence claimed by a consumer
+    private final AtomicLong workSequence = new AtomicLong(-1);
+    // per consumer: every sequence up to this one is done
+    private final AtomicLong[] consumerSequences;
+    // last seen minimum of consumerSequences, so producers rarely scan them
+    private volatile long gatingCache = -1;
+
+    LogRingBuffer(int capacity, int consumers) {
+        if(Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.levels = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.messages = new String[capacity];
+        this.templates = new LogTemplate[capacity];
+        this.args = new Object[capacity][];
+        this.available = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++) {
+            available.set(i, -1);
+        }
+        this.consumerSequences = new AtomicLong[consumers];
+        for(int i = 0; i < consumers; i++) {
+            consumerSequences[i] = new AtomicLong(-1);
+        }
+    }
+
+    // claims the next sequence, or returns -1 when the ring is full
+    long tryClaim() {
+        while(true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - capacity;
+            if(wrapPoint > gatingCache) {
+                long gate = minimumConsumerSequence();
+                gatingCache = gate;
+                if(wrapPoint > gate) {
+                    return -1;
+                }
+            }
+            if(cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    // an event is either a message or a template with its arguments
+    void publish(long sequence, int level, long millis, String message, LogTemplate template, Object[] arguments) {
+        int slot = (int) sequence & mask;
+        levels[slot] = level;
+        timestamps[slot] = millis;
+        messages[slot] = message;
+        templates[slot] = template;
+        args[slot] = arguments;
+        available.set(slot, sequence);
+    }
+
+    /*
+        Claims up to maxBatch published events for consumer and returns the highest sequence
+        claimed. The batch runs from consumerSequence(consumer) + 1 to the returned value, and is
+        empty when the two are equal.
+     */
+    long claimBatch(int consumer, int maxBatch) {
+        while(true) {
+            long claimed = workSequence.get();
+            // everything up to claimed is done or owned by another consumer
+            consumerSequences[consumer].set(claimed);
+            long highest = claimed;
+            while(highest - claimed < maxBatch && available.get((int) (highest + 1) & mask) == highest + 1) {
+                highest++;
+            }
+            if(highest == claimed || workSequence.compareAndSet(claimed, highest)) {
+                return highest;
+            }
+        }
+    }
+
+    int level(long sequence) {
+        return levels[(int) sequence & mask];
+    }
+
+    long timestamp(long sequence) {
+        return timestamps[(int) sequence & mask];
+    }
+
+    // the take methods clear the slot so its objects can be collected
+    String takeMessage(long sequence) {
+        int slot = (int) sequence & mask;
+        String message = messages[slot];
+        messages[slot] = null;
+        return message;
+    }
+
+    LogTemplate takeTemplate(long sequence) {
+        int slot = (int) sequence & mask;
+        LogTemplate template = templates[slot];
+        templates[slot] = null;
+        return template;
+    }
+
+    Object[] takeArgs(long sequence) {
+        int slot = (int) sequence & mask;
+        Object[] arguments = args[slot];
+        args[slot] = null;
+        return arguments;
+    }
+
+    long consumerSequence(int consumer) {
+        return consumerSequences[consumer].get();
+    }
+
+    long getCursor() {
+        return cursor.get();
+    }
+
+    long getWorkSequence() {
+        return workSequence.get();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private long minimumConsumerSequence() {
+        long minimum = Long.MAX_VALUE;
+        for(AtomicLong sequence : consumerSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+}
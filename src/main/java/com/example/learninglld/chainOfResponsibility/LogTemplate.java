@@ -0,0 +1,117 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    A message pattern with {} placeholders, e.g. "user {} logged in from {}". The pattern is split
+    at its placeholders once, and the result is cached, so formatting only appends the pieces and
+    arguments. Each distinct pattern gets a small id for compact log records.
+
+    Templates are kept for the life of the process: pass constant patterns, never text built
+    per message.
+ */
+public final class LogTemplate {
+    private static final ConcurrentHashMap<String, LogTemplate> TEMPLATES = new ConcurrentHashMap<>();
+    // index i holds the template with id i
+    private static final List<LogTemplate> BY_ID = new ArrayList<>();
+
+    private final int id;
+    private final String pattern;
+    // text between the placeholders; one more than the number of placeholders
+    private final String[] segments;
+
+    private LogTemplate(int id, String pattern) {
+        this.id = id;
+        this.pattern = pattern;
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int placeholder;
+        while((placeholder = pattern.indexOf("{}", start)) >= 0) {
+            parts.add(pattern.substring(start, placeholder));
+            start = placeholder + 2;
+        }
+        parts.add(pattern.substring(start));
+        this.segments = parts.toArray(new String[0]);
+    }
+
+    public static LogTemplate of(String pattern) {
+        LogTemplate template = TEMPLATES.get(pattern);
+        if(template != null) {
+            return template;
+        }
+        return TEMPLATES.computeIfAbsent(pattern, key -> {
+            // the id is the template's index, so it is taken under the same lock as the add
+            synchronized(BY_ID) {
+                LogTemplate created = new LogTemplate(BY_ID.size(), key);
+                BY_ID.add(created);
+                return created;
+            }
+        });
+    }
+
+    // the template registered under id, or null
+    public static LogTemplate byId(int id) {
+        synchronized(BY_ID) {
+            return id >= 0 && id < BY_ID.size() ? BY_ID.get(id) : null;
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getArgumentCount() {
+        return segments.length - 1;
+    }
+
+    public String format(Object arg) {
+        return formatFixed(1, arg, null);
+    }
+
+    public String format(Object first, Object second) {
+        return formatFixed(2, first, second);
+    }
+
+    // placeholders without an argument stay as {}; extra arguments are ignored
+    public String format(Object... args) {
+        StringBuilder text = new StringBuilder(pattern.length() + 16 * args.length);
+        text.append(segments[0]);
+        for(int i = 1; i < segments.length; i++) {
+            if(i <= args.length) {
+                text.append(args[i - 1]);
+            }
+            else {
+                text.append("{}");
+            }
+            text.append(segments[i]);
+        }
+        return text.toString();
+    }
+
+    // the fixed-arity forms, so callers with one or two arguments allocate no array
+    private String formatFixed(int count, Object first, Object second) {
+        StringBuilder text = new StringBuilder(pattern.length() + 32);
+        text.append(segments[0]);
+        for(int i = 1; i < segments.length; i++) {
+            if(i <= count) {
+                text.append(i == 1 ? first : second);
+            }
+            else {
+                text.append("{}");
+            }
+            text.append(segments[i]);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
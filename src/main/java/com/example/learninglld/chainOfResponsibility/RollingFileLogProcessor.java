@@ -0,0 +1,514 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    End of a log chain that writes every level to a file, as "LEVEL: message" lines, or as
+    binary records for BinaryLogDecoder in LogFormat.BINARY.
+
+    log() encodes the line straight into an in-memory buffer; no system call is made per
+    message. A full buffer is handed to a background writer thread and the caller continues in a
+    spare one. The writer thread does all FileChannel I/O. The caller only waits when every buffer
+    is queued for writing; getStallCount() counts how often that happened.
+
+    The writer thread also:
+        - rolls the file when the next buffer would take it past maxFileSize, or when it has been
+          open for rollInterval. The rolled file is renamed to base-yyyyMMdd-HHmmss-n.log and,
+          optionally, gzipped by a second background thread. A binary record is never split
+          across buffers, so a roll falls between records, and each new binary file starts with
+          the header and the templates defined so far; every file decodes on its own.
+        - writes out a partly filled buffer, and fsyncs the file, every syncInterval. At most that
+          much logging is lost on a crash. A zero syncInterval fsyncs after every write.
+ */
+public class RollingFileLogProcessor extends LogProcessor implements AutoCloseable {
+    private static final DateTimeFormatter ROLL_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final byte[][] PREFIXES = new byte[16][];
+    // queued by close() behind the last buffer to stop the writer thread
+    private static final ByteBuffer END_OF_LOG = ByteBuffer.allocate(0);
+
+    static {
+        for(int level = 0; level < PREFIXES.length; level++) {
+            PREFIXES[level] = (levelName(level) + ": ").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final Path directory;
+    private final String baseName;
+    private final Path currentFile;
+    private final long maxFileSize;
+    private final long rollIntervalNanos;
+    private final long syncIntervalNanos;
+    private final ExecutorService compressor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private ByteBuffer active;
+    private final ArrayBlockingQueue<ByteBuffer> freeBuffers;
+    private final LinkedBlockingQueue<ByteBuffer> filledBuffers = new LinkedBlockingQueue<>();
+    private final AtomicLong buffersSubmitted = new AtomicLong();
+    private final AtomicLong buffersWritten = new AtomicLong();
+    private final LongAdder stallCount = new LongAdder();
+    private final Thread writer;
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong rolledFiles = new AtomicLong();
+    // the chain's binary records go through it into the buffers; null in TEXT format
+    private volatile BinaryLogWriter fileWriter;
+    private volatile boolean closed;
+
+    // used by the writer thread only
+    private FileChannel channel;
+    private long fileSize;
+    // bytes of binary header and templates at the start of the current file
+    private long preambleSize;
+    private long fileOpenedAtNanos;
+    private long lastSyncNanos;
+    private boolean unsynced;
+    private int rollCount;
+
+    RollingFileLogProcessor(RollingFileLogProcessorBuilder builder) {
+        super(null);
+        this.directory = builder.directory;
+        this.baseName = builder.baseName;
+        this.currentFile = directory.resolve(baseName + ".log");
+        this.maxFileSize = builder.maxFileSize;
+        this.rollIntervalNanos = builder.rollInterval.toNanos();
+        this.syncIntervalNanos = builder.syncInterval.toNanos();
+        this.compressor = builder.compressRolledFiles ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-compressor-" + baseName);
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        this.active = ByteBuffer.allocate(builder.bufferSize);
+        this.freeBuffers = new ArrayBlockingQueue<>(builder.bufferCount);
+        for(int i = 1; i < builder.bufferCount; i++) {
+            freeBuffers.add(ByteBuffer.allocate(builder.bufferSize));
+        }
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open log file " + currentFile, e);
+        }
+        this.writer = new Thread(this::writeLoop, "log-writer-" + baseName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static RollingFileLogProcessorBuilder builder(Path directory) {
+        return new RollingFileLogProcessorBuilder(directory);
+    }
+
+    @Override
+    boolean handles(int level) {
+        return level >= 0;
+    }
+
+    // the file takes the place of out; in BINARY format the records go to the file too
+    @Override
+    void setOutput(PrintStream out, BinaryLogWriter binaryWriter) {
+        fileWriter = binaryWriter == null ? null : new BinaryLogWriter(new RecordSink());
+        super.setOutput(out, fileWriter);
+    }
+
+    @Override
+    public void log(Integer logger, String message) {
+        if(binaryWriter != null) {
+            binaryWriter.writeMessage(logger, System.currentTimeMillis(), message);
+            return;
+        }
+        byte[] prefix = logger >= 0 && logger < PREFIXES.length ? PREFIXES[logger] : (levelName(logger) + ": ").getBytes(StandardCharsets.US_ASCII);
+        lock.lock();
+        try {
+            if(closed) {
+                throw new IllegalStateException("RollingFileLogProcessor is closed");
+            }
+            // worst case three bytes per char, plus prefix and newline
+            if(active.remaining() >= prefix.length + 3 * message.length() + 1) {
+                active.position(encode(prefix, message, active.array(), active.position()));
+            }
+            else {
+                for(byte b : prefix) {
+                    putByte(b);
+                }
+                putSlowly(message);
+                putByte((byte) '\n');
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // hands everything logged so far to the writer and waits until it is in the file
+    @Override
+    public void flush() {
+        long target;
+        lock.lock();
+        try {
+            if(active.position() > 0) {
+                submitActive();
+            }
+            target = buffersSubmitted.get();
+        } finally {
+            lock.unlock();
+        }
+        while(buffersWritten.get() < target && writer.isAlive()) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    // writes out and fsyncs what is buffered, then waits for pending compression
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if(closed) {
+                return;
+            }
+            closed = true;
+            if(active.position() > 0) {
+                submitActive();
+            }
+            filledBuffers.add(END_OF_LOG);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+            if(compressor != null) {
+                compressor.shutdown();
+                compressor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Path getCurrentFile() {
+        return currentFile;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public long getRolledFileCount() {
+        return rolledFiles.get();
+    }
+
+    // times a caller had to wait because every buffer was waiting to be written
+    public long getStallCount() {
+        return stallCount.sum();
+    }
+
+    // encodes "prefix message\n" as UTF-8 into bytes at position, which must have room; returns the new position
+    private static int encode(byte[] prefix, String message, byte[] bytes, int position) {
+        System.arraycopy(prefix, 0, bytes, position, prefix.length);
+        position += prefix.length;
+        for(int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if(c < 0x80) {
+                bytes[position++] = (byte) c;
+            }
+            else {
+                position = encodeChar(message, i, bytes, position);
+                if(isSurrogatePair(message, i)) {
+                    i++;
+                }
+            }
+        }
+        bytes[position++] = '\n';
+        return position;
+    }
+
+    // receives one whole record per write from the BinaryLogWriter
+    private final class RecordSink extends OutputStream {
+        @Override
+        public void write(int b) {
+            putRecord(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            putRecord(bytes, offset, length);
+        }
+    }
+
+    // copies a binary record into one buffer, so the file never rolls in the middle of it
+    private void putRecord(byte[] bytes, int offset, int length) {
+        lock.lock();
+        try {
+            if(closed) {
+                throw new IllegalStateException("RollingFileLogProcessor is closed");
+            }
+            if(active.remaining() < length && active.position() > 0) {
+                submitActive();
+            }
+            if(active.remaining() < length) {
+                // larger than a buffer: queued on its own and dropped once written
+                filledBuffers.add(ByteBuffer.wrap(Arrays.copyOfRange(bytes, offset, offset + length)).asReadOnlyBuffer());
+                buffersSubmitted.incrementAndGet();
+                return;
+            }
+            active.put(bytes, offset, length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // for a message that may not fit: encodes it a char at a time, moving to a new buffer as needed
+    private void putSlowly(String message) {
+        byte[] encoded = new byte[4];
+        for(int i = 0; i < message.length(); i++) {
+            int length = encodeChar(message, i, encoded, 0);
+            if(isSurrogatePair(message, i)) {
+                i++;
+            }
+            if(active.remaining() < length) {
+                submitActive();
+            }
+            active.put(encoded, 0, length);
+        }
+    }
+
+    // UTF-8 encodes the char at index, or the surrogate pair starting there, into bytes; returns the new position
+    private static int encodeChar(String message, int index, byte[] bytes, int position) {
+        char c = message.charAt(index);
+        if(c < 0x80) {
+            bytes[position++] = (byte) c;
+        }
+        else if(c < 0x800) {
+            bytes[position++] = (byte) (0xC0 | (c >> 6));
+            bytes[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else if(isSurrogatePair(message, index)) {
+            // four bytes for the two chars, within the three per char budgeted by log()
+            int codePoint = Character.toCodePoint(c, message.charAt(index + 1));
+            bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+            bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+        else if(Character.isSurrogate(c)) {
+            // an unpaired surrogate has no UTF-8 form; replace it as String.getBytes does
+            bytes[position++] = '?';
+        }
+        else {
+            bytes[position++] = (byte) (0xE0 | (c >> 12));
+            bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return position;
+    }
+
+    private static boolean isSurrogatePair(String message, int index) {
+        return Character.isHighSurrogate(message.charAt(index)) && index + 1 < message.length()
+                && Character.isLowSurrogate(message.charAt(index + 1));
+    }
+
+    private void putByte(byte b) {
+        if(!active.hasRemaining()) {
+            submitActive();
+        }
+        active.put(b);
+    }
+
+    // queues the active buffer for writing and continues in a free one; called with the lock held
+    private void submitActive() {
+        active.flip();
+        filledBuffers.add(active);
+        buffersSubmitted.incrementAndGet();
+        ByteBuffer free = freeBuffers.poll();
+        if(free == null) {
+            stallCount.increment();
+            boolean interrupted = false;
+            while(free == null) {
+                try {
+                    free = freeBuffers.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        active = free;
+    }
+
+    private void writeLoop() {
+        long tickNanos = syncIntervalNanos > 0 ? Math.min(syncIntervalNanos, TimeUnit.SECONDS.toNanos(1)) : TimeUnit.SECONDS.toNanos(1);
+        lastSyncNanos = System.nanoTime();
+        while(true) {
+            ByteBuffer buffer;
+            try {
+                buffer = filledBuffers.poll(tickNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // only close() stops the writer, so every queued buffer reaches the file
+                continue;
+            }
+            if(buffer == END_OF_LOG) {
+                break;
+            }
+            try {
+                if(buffer != null) {
+                    write(buffer);
+                }
+                else {
+                    submitIdleBuffer();
+                }
+                long now = System.nanoTime();
+                if(rollIntervalNanos > 0 && fileSize > preambleSize && now - fileOpenedAtNanos >= rollIntervalNanos) {
+                    roll();
+                }
+                if(unsynced && (syncIntervalNanos == 0 || now - lastSyncNanos >= syncIntervalNanos)) {
+                    channel.force(false);
+                    unsynced = false;
+                    lastSyncNanos = now;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        try {
+            if(fileSize > preambleSize && fileSize + buffer.remaining() > maxFileSize) {
+                try {
+                    roll();
+                } catch (IOException e) {
+                    // the buffer still goes to the current file
+                    e.printStackTrace();
+                }
+            }
+            // a roll that could not reopen the file left it closed; try again
+            if(!channel.isOpen()) {
+                open();
+            }
+            while(buffer.hasRemaining()) {
+                int written = channel.write(buffer);
+                fileSize += written;
+                bytesWritten.addAndGet(written);
+            }
+            unsynced = true;
+        } finally {
+            // read-only buffers hold a single oversized record and are not reused
+            if(!buffer.isReadOnly()) {
+                buffer.clear();
+                freeBuffers.add(buffer);
+            }
+            buffersWritten.incrementAndGet();
+        }
+    }
+
+    // moves a partly filled buffer to the writer, so quiet periods still reach the file
+    private void submitIdleBuffer() {
+        if(!lock.tryLock()) {
+            return;
+        }
+        try {
+            if(active.position() > 0 && !freeBuffers.isEmpty()) {
+                submitActive();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(currentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+        fileOpenedAtNanos = System.nanoTime();
+        preambleSize = 0;
+    }
+
+    // starts a new binary file with the stream's header and templates
+    private void writePreamble() throws IOException {
+        BinaryLogWriter binary = fileWriter;
+        if(binary == null) {
+            return;
+        }
+        ByteBuffer preamble = ByteBuffer.wrap(binary.preamble());
+        while(preamble.hasRemaining()) {
+            int written = channel.write(preamble);
+            fileSize += written;
+            bytesWritten.addAndGet(written);
+        }
+        preambleSize = fileSize;
+    }
+
+    /*
+        If the file cannot be moved, the current file is opened again and logging carries on into
+        it; the next roll tries again. rollCount restarts with the process, so names already taken
+        by an earlier run are skipped.
+     */
+    private void roll() throws IOException {
+        channel.force(false);
+        channel.close();
+        unsynced = false;
+        boolean moved = false;
+        try {
+            String timestamp = ROLL_TIMESTAMP.format(LocalDateTime.now());
+            Path rolled;
+            do {
+                rolled = directory.resolve(baseName + "-" + timestamp + "-" + (++rollCount) + ".log");
+            } while(Files.exists(rolled));
+            Files.move(currentFile, rolled);
+            moved = true;
+            rolledFiles.incrementAndGet();
+            if(compressor != null) {
+                Path compressed = rolled;
+                compressor.execute(() -> compress(compressed));
+            }
+        } finally {
+            open();
+            if(moved) {
+                writePreamble();
+            }
+        }
+    }
+
+    private static void compress(Path file) {
+        Path compressed = file.resolveSibling(file.getFileName() + ".gz");
+        try(InputStream in = Files.newInputStream(file);
+            OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), 1 << 16)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class RollingFileLogProcessorBuilder {
+    final Path directory;
+    String baseName = "application";
+    long maxFileSize = 64L << 20;
+    Duration rollInterval = Duration.ZERO;
+    Duration syncInterval = Duration.ofSeconds(1);
+    boolean compressRolledFiles = false;
+    int bufferSize = 256 << 10;
+    int bufferCount = 4;
+
+    RollingFileLogProcessorBuilder(Path directory) {
+        this.directory = directory;
+    }
+
+    // the current file is baseName.log
+    public RollingFileLogProcessorBuilder setBaseName(String baseName) {
+        this.baseName = baseName;
+        return this;
+    }
+
+    public RollingFileLogProcessorBuilder setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    // how long a file stays open before it is rolled; zero rolls by size only
+    public RollingFileLogProcessorBuilder setRollInterval(Duration rollInterval) {
+        this.rollInterval = rollInterval;
+        return this;
+    }
+
+    // how often buffered lines are written out and fsynced; zero fsyncs after every write
+    public RollingFileLogProcessorBuilder setSyncInterval(Duration syncInterval) {
+        this.syncInterval = syncInterval;
+        return this;
+    }
+
+    // gzip rolled files in the background
+    public RollingFileLogProcessorBuilder setCompressRolledFiles(boolean compressRolledFiles) {
+        this.compressRolledFiles = compressRolledFiles;
+        return this;
+    }
+
+    public RollingFileLogProcessorBuilder setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    // buffers that callers can fill while the writer thread is busy; at least two
+    public RollingFileLogProcessorBuilder setBufferCount(int bufferCount) {
+        this.bufferCount = bufferCount;
+        return this;
+    }
+
+    public RollingFileLogProcessor build() {
+        if(bufferSize < 64 || bufferCount < 2) {
+            throw new IllegalStateException("need at least two buffers of at least 64 bytes");
+        }
+        if(maxFileSize <= 0 || rollInterval.isNegative() || syncInterval.isNegative()) {
+            throw new IllegalStateException("maxFileSize must be positive and intervals must not be negative");
+        }
+        return new RollingFileLogProcessor(this);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.learninglld.chainOfResponsibility;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/*
+    Cost per call and bytes per record of templated messages written as TEXT against BINARY,
+    through a compiled LogDispatcher over INFO -> DEBUG -> ERROR. Output goes to a stream that
+    counts and discards its input.
+
+        java -cp target/classes com.example.learninglld.chainOfResponsibility.StructuredLogBenchmark
+ */
+public class StructuredLogBenchmark {
+    private static final int CALLS = 5_000_000;
+    private static final LogTemplate TEMPLATE = LogTemplate.of("request {} for user {} served in {} ms, cache hit {}");
+
+    static class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public static void main(String[] args) {
+        for(int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            run(print, LogFormat.TEXT);
+            run(print, LogFormat.BINARY);
+        }
+    }
+
+    static void run(boolean print, LogFormat format) {
+        CountingStream counter = new CountingStream();
+        LogProcessor chain = new InfoLogProcessor(new DebugLogProcessor(new ErrorLogProcessor(null)));
+        chain.setOutput(new PrintStream(counter, false)).setFormat(format);
+        LogDispatcher dispatcher = LogDispatcher.compile(chain);
+
+        long start = System.nanoTime();
+        for(int i = 0; i < CALLS; i++) {
+            dispatcher.log(i % 3 + 1, TEMPLATE, i, "user-" + (i & 1023), i & 127, (i & 3) == 0);
+        }
+        chain.flush();
+        long nanos = System.nanoTime() - start;
+        if(print) {
+            System.out.printf("%-8s %8.1f ns/call  %6.1f bytes/record%n", format, (double) nanos / CALLS,
+                    (double) counter.count / CALLS);
+        }
+    }
+}
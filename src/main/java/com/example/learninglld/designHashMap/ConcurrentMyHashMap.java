@@ -0,0 +1,514 @@
+package com.example.learninglld.designHashMap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+    Thread safe version of MyHashMap.
+
+    - Reads take no lock: table slots are read with acquire semantics through a VarHandle
+      and Node.value / Node.next are volatile.
+    - An empty bin is filled with a CAS, a non-empty bin is updated while holding the monitor
+      of its first node, so writers only contend when they hit the same bin.
+    - Resizing is incremental: the thread that starts it and every writer that runs into a
+      moved bin claim strides of bins and copy them into the new table. A copied bin is replaced
+      by a ForwardingNode that sends readers and writers to the new table.
+    - size() is kept in a LongAdder so concurrent inserts do not fight over one counter.
+
+    Like ConcurrentHashMap, null keys and values are not allowed, because get returning null
+    has to mean "absent".
+ */
+public class ConcurrentMyHashMap<K,V> {
+    static class Node<K,V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K,V> next;
+
+        Node(int hash, K key, V value, Node<K,V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    // placed at the head of an old-table bin once its entries were copied to nextTable
+    static final class ForwardingNode<K,V> extends Node<K,V> {
+        final Node<K,V>[] nextTable;
+
+        ForwardingNode(Node<K,V>[] nextTable) {
+            super(MOVED, null, null, null);
+            this.nextTable = nextTable;
+        }
+    }
+
+    // locks an empty bin while computeIfAbsent runs the mapping function
+    static final class ReservationNode<K,V> extends Node<K,V> {
+        ReservationNode() {
+            super(RESERVED, null, null, null);
+        }
+    }
+
+    static final class Resize<K,V> {
+        final Node<K,V>[] table;
+        final Node<K,V>[] nextTable;
+        final ForwardingNode<K,V> forwardingNode;
+        final AtomicInteger transferIndex;
+        final AtomicInteger transferred = new AtomicInteger();
+        volatile boolean done;
+
+        Resize(Node<K,V>[] table, Node<K,V>[] nextTable) {
+            this.table = table;
+            this.nextTable = nextTable;
+            this.forwardingNode = new ForwardingNode<>(nextTable);
+            this.transferIndex = new AtomicInteger(table.length);
+        }
+    }
+
+    static final int MOVED = -1;
+    static final int RESERVED = -2;
+    static final int HASH_BITS = 0x7fffffff;
+    private static final int MAX_CAPACITY = 1<<30;
+    private static final int MIN_TRANSFER_STRIDE = 16;
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    private static final VarHandle TABLE_SLOT = MethodHandles.arrayElementVarHandle(Node[].class);
+    private static final VarHandle RESIZE;
+
+    static {
+        try {
+            RESIZE = MethodHandles.lookup().findVarHandle(ConcurrentMyHashMap.class, "resize", Resize.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Node<K,V>[] table;
+    private volatile Resize<K,V> resize;
+    private volatile int threshold;
+    private final double loadFactor;
+    private final LongAdder count = new LongAdder();
+
+    public ConcurrentMyHashMap() {
+        this(1<<4, 0.75);
+    }
+
+    public ConcurrentMyHashMap(int capacity) {
+        this(capacity, 0.75);
+    }
+
+    public ConcurrentMyHashMap(int capacity, double loadFactor) {
+        if(loadFactor <= 0 || Double.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        int newCapacity = capacity <= 1 ? 1 : Math.min(MAX_CAPACITY, Integer.highestOneBit(capacity - 1) << 1);
+        this.loadFactor = loadFactor;
+        this.table = newTable(newCapacity);
+        this.threshold = thresholdFor(newCapacity);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K,V> Node<K,V>[] newTable(int capacity) {
+        return (Node<K,V>[]) new Node[capacity];
+    }
+
+    private int thresholdFor(int capacity) {
+        return capacity >= MAX_CAPACITY ? Integer.MAX_VALUE : (int) (capacity * loadFactor);
+    }
+
+    // same spreading as MyHashMap, with the sign bit cleared because negative hashes mark special nodes
+    static int spread(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K,V> Node<K,V> tabAt(Node<K,V>[] tab, int i) {
+        return (Node<K,V>) TABLE_SLOT.getAcquire(tab, i);
+    }
+
+    static <K,V> boolean casTabAt(Node<K,V>[] tab, int i, Node<K,V> expected, Node<K,V> node) {
+        return TABLE_SLOT.compareAndSet(tab, i, expected, node);
+    }
+
+    static <K,V> void setTabAt(Node<K,V>[] tab, int i, Node<K,V> node) {
+        TABLE_SLOT.setRelease(tab, i, node);
+    }
+
+    public int size() {
+        long sum = count.sum();
+        return sum < 0 ? 0 : (sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum);
+    }
+
+    public boolean isEmpty() {
+        return count.sum() <= 0;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public V get(K key) {
+        int h = spread(key.hashCode());
+        Node<K,V>[] tab = table;
+        Node<K,V> e = tabAt(tab, h & (tab.length - 1));
+        while(e != null) {
+            if(e.hash == h && key.equals(e.key)) {
+                return e.value;
+            }
+            if(e instanceof ForwardingNode) {
+                tab = ((ForwardingNode<K,V>) e).nextTable;
+                e = tabAt(tab, h & (tab.length - 1));
+                continue;
+            }
+            e = e.next;
+        }
+        return null;
+    }
+
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    private V putVal(K key, V value, boolean onlyIfAbsent) {
+        if(key == null || value == null) {
+            throw new NullPointerException();
+        }
+        int h = spread(key.hashCode());
+        Node<K,V>[] tab = table;
+        while(true) {
+            int i = h & (tab.length - 1);
+            Node<K,V> f = tabAt(tab, i);
+            if(f == null) {
+                if(casTabAt(tab, i, null, new Node<>(h, key, value, null))) {
+                    break;
+                }
+            }
+            else if(f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K,V>) f);
+            }
+            else {
+                boolean locked = false;
+                V oldValue = null;
+                synchronized (f) {
+                    if(tabAt(tab, i) == f) {
+                        locked = true;
+                        for(Node<K,V> e = f; ; e = e.next) {
+                            if(e.hash == h && key.equals(e.key)) {
+                                oldValue = e.value;
+                                if(!onlyIfAbsent) {
+                                    e.value = value;
+                                }
+                                break;
+                            }
+                            if(e.next == null) {
+                                e.next = new Node<>(h, key, value, null);
+                                break;
+                            }
+                        }
+                    }
+                }
+                if(locked) {
+                    if(oldValue != null) {
+                        return oldValue;
+                    }
+                    break;
+                }
+            }
+        }
+        addCount(1, tab);
+        return null;
+    }
+
+    public V remove(K key) {
+        int h = spread(key.hashCode());
+        Node<K,V>[] tab = table;
+        while(true) {
+            int i = h & (tab.length - 1);
+            Node<K,V> f = tabAt(tab, i);
+            if(f == null) {
+                return null;
+            }
+            if(f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K,V>) f);
+                continue;
+            }
+            boolean locked = false;
+            V oldValue = null;
+            synchronized (f) {
+                if(tabAt(tab, i) == f) {
+                    locked = true;
+                    for(Node<K,V> e = f, prev = null; e != null; prev = e, e = e.next) {
+                        if(e.hash == h && key.equals(e.key)) {
+                            oldValue = e.value;
+                            if(prev == null) {
+                                setTabAt(tab, i, e.next);
+                            }
+                            else {
+                                prev.next = e.next;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+            if(locked) {
+                if(oldValue != null) {
+                    count.decrement();
+                }
+                return oldValue;
+            }
+        }
+    }
+
+    /*
+        Runs mappingFunction at most once per absent key while holding the bin, so concurrent
+        callers for the same key wait and then see the same value.
+        The function must not modify this map.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if(key == null || mappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int h = spread(key.hashCode());
+        Node<K,V>[] tab = table;
+        V value = null;
+        boolean added = false;
+        while(true) {
+            int i = h & (tab.length - 1);
+            Node<K,V> f = tabAt(tab, i);
+            if(f == null) {
+                Node<K,V> reservation = new ReservationNode<>();
+                boolean reserved = false;
+                synchronized (reservation) {
+                    if(casTabAt(tab, i, null, reservation)) {
+                        reserved = true;
+                        Node<K,V> node = null;
+                        try {
+                            value = mappingFunction.apply(key);
+                            if(value != null) {
+                                node = new Node<>(h, key, value, null);
+                                added = true;
+                            }
+                        } finally {
+                            setTabAt(tab, i, node);
+                        }
+                    }
+                }
+                if(reserved) {
+                    break;
+                }
+            }
+            else if(f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K,V>) f);
+            }
+            else {
+                boolean locked = false;
+                synchronized (f) {
+                    if(tabAt(tab, i) == f) {
+                        locked = true;
+                        for(Node<K,V> e = f; ; e = e.next) {
+                            if(e.hash == h && key.equals(e.key)) {
+                                value = e.value;
+                                break;
+                            }
+                            if(e.next == null) {
+                                value = mappingFunction.apply(key);
+                                if(value != null) {
+                                    e.next = new Node<>(h, key, value, null);
+                                    added = true;
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+                if(locked) {
+                    break;
+                }
+            }
+        }
+        if(added) {
+            addCount(1, tab);
+        }
+        return value;
+    }
+
+    /*
+        Puts value if the key is absent, otherwise replaces the current value with
+        remappingFunction(current, value), removing the mapping when that returns null.
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if(key == null || value == null || remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int h = spread(key.hashCode());
+        Node<K,V>[] tab = table;
+        V result;
+        int delta;
+        while(true) {
+            int i = h & (tab.length - 1);
+            Node<K,V> f = tabAt(tab, i);
+            if(f == null) {
+                if(casTabAt(tab, i, null, new Node<>(h, key, value, null))) {
+                    result = value;
+                    delta = 1;
+                    break;
+                }
+            }
+            else if(f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K,V>) f);
+            }
+            else {
+                boolean locked = false;
+                result = null;
+                delta = 0;
+                synchronized (f) {
+                    if(tabAt(tab, i) == f) {
+                        locked = true;
+                        for(Node<K,V> e = f, prev = null; ; prev = e, e = e.next) {
+                            if(e.hash == h && key.equals(e.key)) {
+                                result = remappingFunction.apply(e.value, value);
+                                if(result != null) {
+                                    e.value = result;
+                                }
+                                else {
+                                    delta = -1;
+                                    if(prev == null) {
+                                        setTabAt(tab, i, e.next);
+                                    }
+                                    else {
+                                        prev.next = e.next;
+                                    }
+                                }
+                                break;
+                            }
+                            if(e.next == null) {
+                                e.next = new Node<>(h, key, value, null);
+                                result = value;
+                                delta = 1;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if(locked) {
+                    break;
+                }
+            }
+        }
+        if(delta > 0) {
+            addCount(1, tab);
+        }
+        else if(delta < 0) {
+            count.decrement();
+        }
+        return result;
+    }
+
+    private void addCount(long delta, Node<K,V>[] tab) {
+        count.add(delta);
+        if(count.sum() >= threshold && tab.length < MAX_CAPACITY) {
+            startResize(tab);
+        }
+    }
+
+    private void startResize(Node<K,V>[] tab) {
+        Resize<K,V> current = resize;
+        if(current != null && !current.done) {
+            transfer(current);
+            return;
+        }
+        // the finished resize stays in place, so a thread holding a stale table can never win the CAS below
+        Node<K,V>[] latest = current == null ? table : current.nextTable;
+        if(tab != latest || count.sum() < threshold) {
+            return;
+        }
+        Resize<K,V> next = new Resize<>(tab, newTable(tab.length << 1));
+        if(RESIZE.compareAndSet(this, current, next)) {
+            transfer(next);
+        }
+    }
+
+    private Node<K,V>[] helpTransfer(ForwardingNode<K,V> f) {
+        Resize<K,V> current = resize;
+        if(current != null && !current.done && current.nextTable == f.nextTable) {
+            transfer(current);
+        }
+        return f.nextTable;
+    }
+
+    /*
+        Claims strides of bins from the top of the old table until none are left.
+        Whoever copies the last bin publishes the new table.
+     */
+    private void transfer(Resize<K,V> r) {
+        int n = r.table.length;
+        int stride = Math.max(MIN_TRANSFER_STRIDE, n / (8 * NCPU));
+        while(true) {
+            int end = r.transferIndex.get();
+            if(end <= 0) {
+                return;
+            }
+            int start = Math.max(0, end - stride);
+            if(!r.transferIndex.compareAndSet(end, start)) {
+                continue;
+            }
+            for(int i = end - 1; i >= start; i--) {
+                transferBin(r, i);
+            }
+            if(r.transferred.addAndGet(end - start) == n) {
+                table = r.nextTable;
+                threshold = thresholdFor(r.nextTable.length);
+                r.done = true;
+                return;
+            }
+        }
+    }
+
+    /*
+        Copies bin i into bins i and i + n of the new table. The old nodes are copied rather than
+        relinked, so readers still walking the old chain are never sent into the wrong bin.
+     */
+    private void transferBin(Resize<K,V> r, int i) {
+        Node<K,V>[] tab = r.table;
+        Node<K,V>[] nextTab = r.nextTable;
+        int n = tab.length;
+        while(true) {
+            Node<K,V> f = tabAt(tab, i);
+            if(f == null) {
+                if(casTabAt(tab, i, null, r.forwardingNode)) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (f) {
+                if(tabAt(tab, i) == f) {
+                    Node<K,V> lo = null;
+                    Node<K,V> hi = null;
+                    for(Node<K,V> e = f; e != null; e = e.next) {
+                        if((e.hash & n) == 0) {
+                            lo = new Node<>(e.hash, e.key, e.value, lo);
+                        }
+                        else {
+                            hi = new Node<>(e.hash, e.key, e.value, hi);
+                        }
+                    }
+                    setTabAt(nextTab, i, lo);
+                    setTabAt(nextTab, i + n, hi);
+                    setTabAt(tab, i, r.forwardingNode);
+                    return;
+                }
+            }
+        }
+    }
+}
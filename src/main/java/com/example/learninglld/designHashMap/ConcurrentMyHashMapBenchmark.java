@@ -0,0 +1,110 @@
+package com.example.learninglld.designHashMap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Throughput of a synchronized MyHashMap, ConcurrentMyHashMap and java.util.concurrent.ConcurrentHashMap
+    at 1 to 64 threads. Every thread runs a 90% get / 10% put mix over a shared key range.
+
+        java -cp target/classes com.example.learninglld.designHashMap.ConcurrentMyHashMapBenchmark
+ */
+public class ConcurrentMyHashMapBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int KEY_RANGE = 1 << 20;
+    private static final long RUN_MILLIS = 1_000;
+    private static final int WRITE_PERCENT = 10;
+
+    interface SharedMap {
+        Integer get(Integer key);
+
+        void put(Integer key, Integer value);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for(int threads : THREAD_COUNTS) {
+            System.out.println("---- " + threads + " threads ----");
+
+            MyHashMap<Integer, Integer> locked = new MyHashMap<>();
+            run("synchronized MyHashMap", threads, new SharedMap() {
+                public Integer get(Integer key) {
+                    synchronized (locked) {
+                        return locked.get(key);
+                    }
+                }
+
+                public void put(Integer key, Integer value) {
+                    synchronized (locked) {
+                        locked.put(key, value);
+                    }
+                }
+            });
+
+            ConcurrentMyHashMap<Integer, Integer> concurrent = new ConcurrentMyHashMap<>();
+            run("ConcurrentMyHashMap", threads, new SharedMap() {
+                public Integer get(Integer key) {
+                    return concurrent.get(key);
+                }
+
+                public void put(Integer key, Integer value) {
+                    concurrent.put(key, value);
+                }
+            });
+
+            ConcurrentHashMap<Integer, Integer> jdk = new ConcurrentHashMap<>();
+            run("ConcurrentHashMap", threads, new SharedMap() {
+                public Integer get(Integer key) {
+                    return jdk.get(key);
+                }
+
+                public void put(Integer key, Integer value) {
+                    jdk.put(key, value);
+                }
+            });
+        }
+    }
+
+    static void run(String name, int threads, SharedMap map) throws InterruptedException {
+        for(int i = 0; i < KEY_RANGE; i += 2) {
+            map.put(i, i);
+        }
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(threads);
+        long[] deadline = new long[1];
+        for(int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long done = 0;
+                while(System.nanoTime() < deadline[0]) {
+                    // check the clock only every 256 operations
+                    for(int i = 0; i < 256; i++) {
+                        Integer key = random.nextInt(KEY_RANGE);
+                        if(random.nextInt(100) < WRITE_PERCENT) {
+                            map.put(key, key);
+                        }
+                        else {
+                            map.get(key);
+                        }
+                    }
+                    done += 256;
+                }
+                ops.add(done);
+                finished.countDown();
+            });
+            worker.start();
+        }
+        deadline[0] = System.nanoTime() + RUN_MILLIS * 1_000_000;
+        start.countDown();
+        finished.await();
+        System.out.printf("%-24s %,14d ops/s%n", name, ops.sum() * 1000 / RUN_MILLIS);
+    }
+}
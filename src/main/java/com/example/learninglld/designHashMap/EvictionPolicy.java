@@ -0,0 +1,8 @@
+package com.example.learninglld.designHashMap;
+
+public enum EvictionPolicy {
+    // evict the least recently used entry
+    LRU,
+    // small LRU admission window in front of a segmented LRU, guarded by a frequency sketch
+    W_TINY_LFU
+}
@@ -0,0 +1,201 @@
+package com.example.learninglld.designHashMap;
+
+import java.util.Arrays;
+
+/*
+    MyHashMap specialised for long keys.
+    Keys live in a flat long[] and values in a parallel Object[], using open addressing with
+    linear probing, so a put never boxes the key or allocates an Entry.
+    Key 0 marks an empty slot, so a mapping for 0 is kept in its own field.
+ */
+public class LongMyHashMap<V> {
+    private static final int MAX_CAPACITY = 1<<30;
+
+    long[] keys;
+    Object[] values;
+    int capacity;
+    double loadFactor;
+    int threshold;
+    int size;
+    private int mask;
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    public LongMyHashMap() {
+        this(1<<4, 0.75);
+    }
+
+    public LongMyHashMap(int capacity) {
+        this(capacity, 0.75);
+    }
+
+    public LongMyHashMap(int capacity, double loadFactor) {
+        // with open addressing the table must always keep at least one free slot
+        if(loadFactor <= 0 || loadFactor >= 1 || Double.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(roundUpToPowerOfTwo(capacity));
+    }
+
+    private static int roundUpToPowerOfTwo(int capacity) {
+        if(capacity <= 2) {
+            return 2;
+        }
+        if(capacity >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private void allocate(int newCapacity) {
+        keys = new long[newCapacity];
+        values = new Object[newCapacity];
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        threshold = Math.min(newCapacity - 1, (int) (newCapacity * loadFactor));
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if(key == 0) {
+            return hasZeroKey;
+        }
+        return slotOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if(key == 0) {
+            return zeroValue;
+        }
+        int slot = slotOf(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if(key == 0) {
+            V oldValue = zeroValue;
+            zeroValue = value;
+            if(!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            return oldValue;
+        }
+        int slot = hash(key) & mask;
+        while(keys[slot] != 0) {
+            if(keys[slot] == key) {
+                V oldValue = (V) values[slot];
+                values[slot] = value;
+                return oldValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if(++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if(key == 0) {
+            if(!hasZeroKey) {
+                return null;
+            }
+            V oldValue = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            return oldValue;
+        }
+        int slot = slotOf(key);
+        if(slot < 0) {
+            return null;
+        }
+        V oldValue = (V) values[slot];
+        shiftBack(slot);
+        size--;
+        return oldValue;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    private int slotOf(long key) {
+        int slot = hash(key) & mask;
+        long k;
+        while((k = keys[slot]) != 0) {
+            if(k == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /*
+        Backward-shift deletion: instead of leaving a tombstone, later entries of the same probe
+        run are moved into the gap whenever their home slot is not between the gap and their slot.
+     */
+    private void shiftBack(int gap) {
+        int slot = (gap + 1) & mask;
+        long k;
+        while((k = keys[slot]) != 0) {
+            int home = hash(k) & mask;
+            if(((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void resize() {
+        if(capacity >= MAX_CAPACITY) {
+            if(size >= capacity - 1) {
+                throw new IllegalStateException("LongMyHashMap is full");
+            }
+            threshold = capacity - 1;
+            return;
+        }
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity << 1);
+        for(int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if(k != 0) {
+                int slot = hash(k) & mask;
+                while(keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = k;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
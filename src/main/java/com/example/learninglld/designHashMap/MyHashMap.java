@@ -1,25 +1,98 @@
 package com.example.learninglld.designHashMap;
 
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 public class MyHashMap<K,V> {
-    class Entry<K,V> {
-        K key;
+    static class Entry<K,V> implements Map.Entry<K,V> {
+        final int hash;
+        final K key;
         V value;
         Entry<K,V> next;
+
+        Entry(int hash, K key, V value, Entry<K,V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
     }
 
+    /*
+        A bucket that grew past TREEIFY_THRESHOLD is stored as an AVL tree instead of a chain.
+        Nodes are ordered by hash, then class name, then compareTo (for Comparable keys),
+        and finally by insertion sequence so the order is always total.
+     */
+    static final class TreeEntry<K,V> extends Entry<K,V> {
+        TreeEntry<K,V> left;
+        TreeEntry<K,V> right;
+        int height = 1;
+        final long seq;
+
+        TreeEntry(int hash, K key, V value, long seq) {
+            super(hash, key, value, null);
+            this.seq = seq;
+        }
+    }
+
+    static final int TREEIFY_THRESHOLD = 8;
+    static final int UNTREEIFY_THRESHOLD = 6;
+    static final int MIN_TREEIFY_CAPACITY = 64;
+
     int capacity = 1<<4; //16
-    Entry[] table;
+    Entry<K,V>[] table;
     int MAX_CAPACITY = 1<<30; //1073741824
     double loadFactor = 0.75;
+    int threshold;
+    int size;
+    int modCount;
+    private long treeSeq;
 
-    MyHashMap() {
-        table = new Entry[capacity];
+    public MyHashMap() {
+        table = newTable(capacity);
+        threshold = (int) (capacity * loadFactor);
     }
 
-    MyHashMap(int capacity) {
+    public MyHashMap(int capacity) {
+        this(capacity, 0.75);
+    }
+
+    public MyHashMap(int capacity, double loadFactor) {
+        if(loadFactor <= 0 || Double.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
         int newCapacity = roundUpToPowerOfTwo(capacity);
         this.capacity = newCapacity;
-        table = new Entry[newCapacity];
+        this.loadFactor = loadFactor;
+        table = newTable(newCapacity);
+        threshold = (int) (newCapacity * loadFactor);
     }
 
     private Integer roundUpToPowerOfTwo(int capacity) {
@@ -39,45 +112,601 @@ public class MyHashMap<K,V> {
         return n + 1;
     }
 
-    private int hash(K key) {
-        return Math.abs(key.hashCode()) % capacity;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K,V> Entry<K,V>[] newTable(int capacity) {
+        return (Entry<K,V>[]) new Entry[capacity];
     }
 
-    private void put(K key, V value) {
-        int index = hash(key);
-        Entry entry = table[index];
-        if(entry != null) {
-            while(entry!= null) {
-                if(entry.key.equals(key)) {
+    /*
+        Multiply by the golden ratio constant and fold the high bits down, so keys whose
+        hashCodes only differ in the upper bits still land in different buckets once masked.
+     */
+    static int hash(Object key) {
+        if(key == null) {
+            return 0;
+        }
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int indexFor(int hash, int length) {
+        return hash & (length - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(K key) {
+        return getEntry(key) != null;
+    }
+
+    // creates a map whose table already fits expectedSize entries without resizing
+    public static <K,V> MyHashMap<K,V> withExpectedSize(int expectedSize) {
+        return new MyHashMap<>(capacityFor(expectedSize, 0.75));
+    }
+
+    private static int capacityFor(long expectedSize, double loadFactor) {
+        return (int) Math.min(1<<30, (long) Math.ceil(expectedSize / loadFactor) + 1);
+    }
+
+    public V put(K key, V value) {
+        return putVal(hash(key), key, value);
+    }
+
+    /*
+        Copies every mapping of the given map. The table is grown once up front for the combined
+        size, and entries coming from another MyHashMap reuse their stored hash.
+     */
+    public void putAll(MyHashMap<? extends K, ? extends V> other) {
+        ensureCapacity(size + other.size);
+        for(Entry<? extends K, ? extends V> head : other.table) {
+            if(head instanceof TreeEntry<? extends K, ? extends V> tree) {
+                for(Entry<? extends K, ? extends V> entry : inOrder(tree)) {
+                    putVal(entry.hash, entry.key, entry.value);
+                }
+                continue;
+            }
+            for(Entry<? extends K, ? extends V> entry = head; entry != null; entry = entry.next) {
+                putVal(entry.hash, entry.key, entry.value);
+            }
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> other) {
+        ensureCapacity(size + other.size());
+        for(Map.Entry<? extends K, ? extends V> entry : other.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // grows the table ahead of a bulk load so that expectedSize entries fit under the load factor
+    public void ensureCapacity(int expectedSize) {
+        int wanted = roundUpToPowerOfTwo(capacityFor(expectedSize, loadFactor));
+        if(wanted <= table.length) {
+            return;
+        }
+        if(size == 0) {
+            table = newTable(wanted);
+            capacity = wanted;
+            threshold = wanted >= MAX_CAPACITY ? Integer.MAX_VALUE : (int) (wanted * loadFactor);
+            modCount++;
+            return;
+        }
+        while(table.length < wanted && table.length < MAX_CAPACITY) {
+            resize();
+        }
+    }
+
+    private V putVal(int hash, K key, V value) {
+        int index = indexFor(hash, table.length);
+        Entry<K,V> head = table[index];
+        if(head == null) {
+            table[index] = new Entry<>(hash, key, value, null);
+        }
+        else if(head instanceof TreeEntry) {
+            TreeEntry<K,V> root = (TreeEntry<K,V>) head;
+            TreeEntry<K,V> existing = findTreeEntry(root, hash, key);
+            if(existing != null) {
+                V oldValue = existing.value;
+                existing.value = value;
+                return oldValue;
+            }
+            table[index] = insertTreeEntry(root, new TreeEntry<>(hash, key, value, treeSeq++));
+        }
+        else {
+            int binCount = 0;
+            Entry<K,V> entry = head;
+            while(true) {
+                if(entry.hash == hash && Objects.equals(entry.key, key)) {
+                    V oldValue = entry.value;
                     entry.value = value;
-                    return;
+                    return oldValue;
                 }
+                binCount++;
                 if(entry.next == null) {
-                    Entry<K,V> newEntry = new Entry<>();
-                    newEntry.key = key;
-                    newEntry.value = value;
-                    entry.next = newEntry;
-                    return;
+                    entry.next = new Entry<>(hash, key, value, null);
+                    if(binCount >= TREEIFY_THRESHOLD) {
+                        treeifyBin(index);
+                    }
+                    break;
                 }
                 entry = entry.next;
             }
         }
 
-        Entry newEntry = new Entry<>();
-        newEntry.key = key;
-        newEntry.value = value;
-        table[index] = newEntry;
+        modCount++;
+        if(++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    public V get(K key) {
+        Entry<K,V> entry = getEntry(key);
+        return entry == null ? null : entry.value;
     }
 
-    private V get(K key) {
-        int index = hash(key);
-        Entry entry = table[index];
-        while(entry!= null) {
-            if(entry.key.equals(key)) {
-                return (V)entry.value;
+    Entry<K,V> getEntry(Object key) {
+        int hash = hash(key);
+        Entry<K,V> entry = table[indexFor(hash, table.length)];
+        if(entry instanceof TreeEntry) {
+            return findTreeEntry((TreeEntry<K,V>) entry, hash, key);
+        }
+        while(entry != null) {
+            if(entry.hash == hash && Objects.equals(entry.key, key)) {
+                return entry;
             }
             entry = entry.next;
         }
         return null;
     }
+
+    public V remove(K key) {
+        int hash = hash(key);
+        int index = indexFor(hash, table.length);
+        Entry<K,V> head = table[index];
+        if(head instanceof TreeEntry) {
+            TreeEntry<K,V> target = findTreeEntry((TreeEntry<K,V>) head, hash, key);
+            if(target == null) {
+                return null;
+            }
+            TreeEntry<K,V> root = deleteTreeEntry((TreeEntry<K,V>) head, target);
+            table[index] = untreeifyIfSmall(root);
+            size--;
+            modCount++;
+            return target.value;
+        }
+
+        Entry<K,V> prev = null;
+        for(Entry<K,V> entry = head; entry != null; prev = entry, entry = entry.next) {
+            if(entry.hash == hash && Objects.equals(entry.key, key)) {
+                if(prev == null) {
+                    table[index] = entry.next;
+                }
+                else {
+                    prev.next = entry.next;
+                }
+                size--;
+                modCount++;
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        table = newTable(capacity);
+        size = 0;
+        modCount++;
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        spliterator().forEachRemaining(entry -> action.accept(entry.getKey(), entry.getValue()));
+    }
+
+    public Spliterator<Map.Entry<K,V>> spliterator() {
+        return new EntrySpliterator<>(this, 0, -1, 0, 0);
+    }
+
+    public Stream<Map.Entry<K,V>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<Map.Entry<K,V>> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /*
+        Walks the buckets in [index, fence). trySplit hands the lower half of the remaining
+        bucket range to a new spliterator, so a parallel stream splits the table into
+        independent bucket ranges. Only the top-level spliterator knows its exact size.
+     */
+    static final class EntrySpliterator<K,V> implements Spliterator<Map.Entry<K,V>> {
+        private final MyHashMap<K,V> map;
+        private int index;
+        private int fence; // -1 until first use
+        private long estimate;
+        private int expectedModCount;
+        private Entry<K,V> current;
+        private List<Entry<K,V>> treeEntries;
+        private int treeIndex;
+
+        EntrySpliterator(MyHashMap<K,V> map, int index, int fence, long estimate, int expectedModCount) {
+            this.map = map;
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            if(fence < 0) {
+                fence = map.table.length;
+                estimate = map.size;
+                expectedModCount = map.modCount;
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K,V>> trySplit() {
+            int hi = getFence();
+            int mid = (index + hi) >>> 1;
+            if(index >= mid || current != null || treeEntries != null) {
+                return null;
+            }
+            EntrySpliterator<K,V> prefix = new EntrySpliterator<>(map, index, mid, estimate >>>= 1, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K,V>> action) {
+            Entry<K,V>[] tab = map.table;
+            int hi = getFence();
+            while(true) {
+                if(treeEntries != null) {
+                    if(treeIndex < treeEntries.size()) {
+                        action.accept(treeEntries.get(treeIndex++));
+                        checkModCount();
+                        return true;
+                    }
+                    treeEntries = null;
+                }
+                if(current != null) {
+                    Entry<K,V> entry = current;
+                    current = entry.next;
+                    action.accept(entry);
+                    checkModCount();
+                    return true;
+                }
+                if(index >= hi) {
+                    return false;
+                }
+                Entry<K,V> head = tab[index++];
+                if(head instanceof TreeEntry) {
+                    treeEntries = inOrder((TreeEntry<K,V>) head);
+                    treeIndex = 0;
+                }
+                else {
+                    current = head;
+                }
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K,V>> action) {
+            while(treeEntries != null || current != null) {
+                if(!tryAdvance(action)) {
+                    return;
+                }
+            }
+            Entry<K,V>[] tab = map.table;
+            int hi = getFence();
+            for(; index < hi; index++) {
+                Entry<K,V> head = tab[index];
+                if(head instanceof TreeEntry) {
+                    for(Entry<K,V> entry : inOrder((TreeEntry<K,V>) head)) {
+                        action.accept(entry);
+                    }
+                    continue;
+                }
+                for(Entry<K,V> entry = head; entry != null; entry = entry.next) {
+                    action.accept(entry);
+                }
+            }
+            checkModCount();
+        }
+
+        private void checkModCount() {
+            if(map.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            getFence();
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return (fence < 0 || estimate == map.size ? Spliterator.SIZED : 0) | Spliterator.DISTINCT;
+        }
+    }
+
+    /*
+        Doubles the table. Because the capacity is a power of two, every entry of bucket i
+        either stays at i or moves to i + oldCapacity depending on a single hash bit,
+        so each bucket is split into a "lo" and a "hi" half without rehashing keys.
+     */
+    void resize() {
+        int oldCapacity = table.length;
+        if(oldCapacity >= MAX_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        int newCapacity = oldCapacity << 1;
+        Entry<K,V>[] oldTable = table;
+        Entry<K,V>[] newTable = newTable(newCapacity);
+
+        for(int i = 0; i < oldCapacity; i++) {
+            Entry<K,V> head = oldTable[i];
+            if(head == null) {
+                continue;
+            }
+            oldTable[i] = null;
+            if(head instanceof TreeEntry) {
+                List<Entry<K,V>> lo = new ArrayList<>();
+                List<Entry<K,V>> hi = new ArrayList<>();
+                for(Entry<K,V> entry : inOrder((TreeEntry<K,V>) head)) {
+                    if((entry.hash & oldCapacity) == 0) {
+                        lo.add(entry);
+                    }
+                    else {
+                        hi.add(entry);
+                    }
+                }
+                newTable[i] = buildBin(lo);
+                newTable[i + oldCapacity] = buildBin(hi);
+            }
+            else {
+                Entry<K,V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+                Entry<K,V> next;
+                for(Entry<K,V> entry = head; entry != null; entry = next) {
+                    next = entry.next;
+                    entry.next = null;
+                    if((entry.hash & oldCapacity) == 0) {
+                        if(loTail == null) loHead = entry; else loTail.next = entry;
+                        loTail = entry;
+                    }
+                    else {
+                        if(hiTail == null) hiHead = entry; else hiTail.next = entry;
+                        hiTail = entry;
+                    }
+                }
+                newTable[i] = loHead;
+                newTable[i + oldCapacity] = hiHead;
+            }
+        }
+
+        table = newTable;
+        capacity = newCapacity;
+        modCount++;
+        threshold = newCapacity >= MAX_CAPACITY ? Integer.MAX_VALUE : (int) (newCapacity * loadFactor);
+    }
+
+    private void treeifyBin(int index) {
+        if(table.length < MIN_TREEIFY_CAPACITY) {
+            resize();
+            return;
+        }
+        List<Entry<K,V>> entries = new ArrayList<>();
+        for(Entry<K,V> entry = table[index]; entry != null; entry = entry.next) {
+            entries.add(entry);
+        }
+        table[index] = buildTree(entries);
+    }
+
+    private Entry<K,V> buildBin(List<Entry<K,V>> entries) {
+        if(entries.isEmpty()) {
+            return null;
+        }
+        if(entries.size() > UNTREEIFY_THRESHOLD) {
+            return buildTree(entries);
+        }
+        return buildChain(entries);
+    }
+
+    private Entry<K,V> buildChain(List<Entry<K,V>> entries) {
+        Entry<K,V> head = null;
+        for(int i = entries.size() - 1; i >= 0; i--) {
+            Entry<K,V> entry = entries.get(i);
+            head = new Entry<>(entry.hash, entry.key, entry.value, head);
+        }
+        return head;
+    }
+
+    private TreeEntry<K,V> buildTree(List<Entry<K,V>> entries) {
+        TreeEntry<K,V> root = null;
+        for(Entry<K,V> entry : entries) {
+            root = insertTreeEntry(root, new TreeEntry<>(entry.hash, entry.key, entry.value, treeSeq++));
+        }
+        return root;
+    }
+
+    private Entry<K,V> untreeifyIfSmall(TreeEntry<K,V> root) {
+        // an AVL tree of height 3 holds at most 7 entries, so only small trees are walked
+        if(root == null || root.height > 3) {
+            return root;
+        }
+        List<Entry<K,V>> entries = inOrder(root);
+        return entries.size() <= UNTREEIFY_THRESHOLD ? buildChain(entries) : root;
+    }
+
+    private static <K,V> List<Entry<K,V>> inOrder(TreeEntry<K,V> root) {
+        List<Entry<K,V>> entries = new ArrayList<>();
+        collect(root, entries);
+        return entries;
+    }
+
+    private static <K,V> void collect(TreeEntry<K,V> node, List<Entry<K,V>> entries) {
+        if(node == null) {
+            return;
+        }
+        collect(node.left, entries);
+        entries.add(node);
+        collect(node.right, entries);
+    }
+
+    /*
+        Compares two keys without the insertion sequence tie-break.
+        Returns 0 when the keys cannot be told apart, in which case both subtrees may hold a match.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(int hash1, Object key1, int hash2, Object key2) {
+        if(hash1 != hash2) {
+            return hash1 < hash2 ? -1 : 1;
+        }
+        if(key1 == null || key2 == null) {
+            return key1 == key2 ? 0 : (key1 == null ? -1 : 1);
+        }
+        Class<?> class1 = key1.getClass();
+        Class<?> class2 = key2.getClass();
+        if(class1 != class2) {
+            return class1.getName().compareTo(class2.getName());
+        }
+        if(key1 instanceof Comparable) {
+            return ((Comparable) key1).compareTo(key2);
+        }
+        return 0;
+    }
+
+    private static int order(TreeEntry<?,?> a, TreeEntry<?,?> b) {
+        int cmp = compareKeys(a.hash, a.key, b.hash, b.key);
+        return cmp != 0 ? cmp : Long.compare(a.seq, b.seq);
+    }
+
+    private TreeEntry<K,V> findTreeEntry(TreeEntry<K,V> root, int hash, Object key) {
+        TreeEntry<K,V> node = root;
+        while(node != null) {
+            int cmp = compareKeys(hash, key, node.hash, node.key);
+            if(cmp < 0) {
+                node = node.left;
+            }
+            else if(cmp > 0) {
+                node = node.right;
+            }
+            else {
+                if(Objects.equals(key, node.key)) {
+                    return node;
+                }
+                TreeEntry<K,V> found = findTreeEntry(node.right, hash, key);
+                if(found != null) {
+                    return found;
+                }
+                node = node.left;
+            }
+        }
+        return null;
+    }
+
+    private TreeEntry<K,V> insertTreeEntry(TreeEntry<K,V> node, TreeEntry<K,V> newEntry) {
+        if(node == null) {
+            return newEntry;
+        }
+        if(order(newEntry, node) < 0) {
+            node.left = insertTreeEntry(node.left, newEntry);
+        }
+        else {
+            node.right = insertTreeEntry(node.right, newEntry);
+        }
+        return rebalance(node);
+    }
+
+    private TreeEntry<K,V> deleteTreeEntry(TreeEntry<K,V> node, TreeEntry<K,V> target) {
+        if(node == null) {
+            return null;
+        }
+        if(node == target) {
+            if(node.left == null) {
+                return node.right;
+            }
+            if(node.right == null) {
+                return node.left;
+            }
+            TreeEntry<K,V> successor = node.right;
+            while(successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return rebalance(successor);
+        }
+        if(order(target, node) < 0) {
+            node.left = deleteTreeEntry(node.left, target);
+        }
+        else {
+            node.right = deleteTreeEntry(node.right, target);
+        }
+        return rebalance(node);
+    }
+
+    private TreeEntry<K,V> deleteMin(TreeEntry<K,V> node) {
+        if(node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int height(TreeEntry<?,?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void updateHeight(TreeEntry<?,?> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    private TreeEntry<K,V> rebalance(TreeEntry<K,V> node) {
+        updateHeight(node);
+        int balance = height(node.left) - height(node.right);
+        if(balance > 1) {
+            if(height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if(balance < -1) {
+            if(height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private TreeEntry<K,V> rotateRight(TreeEntry<K,V> node) {
+        TreeEntry<K,V> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        updateHeight(node);
+        updateHeight(left);
+        return left;
+    }
+
+    private TreeEntry<K,V> rotateLeft(TreeEntry<K,V> node) {
+        TreeEntry<K,V> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        updateHeight(node);
+        updateHeight(right);
+        return right;
+    }
 }
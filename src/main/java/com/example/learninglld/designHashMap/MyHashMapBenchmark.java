@@ -0,0 +1,188 @@
+package com.example.learninglld.designHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/*
+    Rough timing harness comparing the chained MyHashMap, java.util.HashMap and the
+    open-addressing IntMyHashMap / LongMyHashMap with int and long ID keys, plus the
+    MyHashMap bulk-build path and sequential vs parallel scans.
+
+    Run with a large heap for the 50M case, e.g.
+        java -Xmx24g -cp target/classes com.example.learninglld.designHashMap.MyHashMapBenchmark
+    or pass the sizes to run as arguments: ... MyHashMapBenchmark 1000 1000000
+ */
+public class MyHashMapBenchmark {
+    private static final int[] DEFAULT_SIZES = {1_000, 1_000_000, 50_000_000};
+    private static final String VALUE = "value";
+
+    interface Lookup<M> {
+        long lookupAll(M map, int size);
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if(args.length > 0) {
+            sizes = new int[args.length];
+            for(int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        for(int size : sizes) {
+            comparePrimitiveKeyMaps(size);
+            compareBulkBuildAndScan(size);
+        }
+    }
+
+    public static void comparePrimitiveKeyMaps(int size) {
+        System.out.println("---- " + size + " entries ----");
+        run("java.util.HashMap<Integer>", size,
+                n -> {
+                    HashMap<Integer, String> map = new HashMap<>();
+                    for(int i = 0; i < n; i++) map.put(i, VALUE);
+                    return map;
+                },
+                (map, n) -> {
+                    long found = 0;
+                    for(int i = 0; i < n; i++) if(map.get(i) != null) found++;
+                    return found;
+                });
+        run("MyHashMap<Integer>", size,
+                n -> {
+                    MyHashMap<Integer, String> map = new MyHashMap<>();
+                    for(int i = 0; i < n; i++) map.put(i, VALUE);
+                    return map;
+                },
+                (map, n) -> {
+                    long found = 0;
+                    for(int i = 0; i < n; i++) if(map.get(i) != null) found++;
+                    return found;
+                });
+        run("IntMyHashMap", size,
+                n -> {
+                    IntMyHashMap<String> map = new IntMyHashMap<>();
+                    for(int i = 0; i < n; i++) map.put(i, VALUE);
+                    return map;
+                },
+                (map, n) -> {
+                    long found = 0;
+                    for(int i = 0; i < n; i++) if(map.get(i) != null) found++;
+                    return found;
+                });
+        run("java.util.HashMap<Long>", size,
+                n -> {
+                    HashMap<Long, String> map = new HashMap<>();
+                    for(long i = 0; i < n; i++) map.put(i, VALUE);
+                    return map;
+                },
+                (map, n) -> {
+                    long found = 0;
+                    for(long i = 0; i < n; i++) if(map.get(i) != null) found++;
+                    return found;
+                });
+        run("LongMyHashMap", size,
+                n -> {
+                    LongMyHashMap<String> map = new LongMyHashMap<>();
+                    for(long i = 0; i < n; i++) map.put(i, VALUE);
+                    return map;
+                },
+                (map, n) -> {
+                    long found = 0;
+                    for(long i = 0; i < n; i++) if(map.get(i) != null) found++;
+                    return found;
+                });
+    }
+
+    public static void compareBulkBuildAndScan(int size) {
+        System.out.println("---- bulk build and scan, " + size + " entries ----");
+        MyHashMap<Integer, String> snapshot = new MyHashMap<>();
+        HashMap<Integer, String> jdkSnapshot = new HashMap<>();
+        for(int i = 0; i < size; i++) {
+            snapshot.put(i, VALUE);
+            jdkSnapshot.put(i, VALUE);
+        }
+
+        run("put one by one", size,
+                n -> {
+                    MyHashMap<Integer, String> map = new MyHashMap<>();
+                    for(Map.Entry<Integer, String> entry : jdkSnapshot.entrySet()) map.put(entry.getKey(), entry.getValue());
+                    return map;
+                },
+                MyHashMapBenchmark::lookupAll);
+        run("putAll(Map), presized", size,
+                n -> {
+                    MyHashMap<Integer, String> map = new MyHashMap<>();
+                    map.putAll(jdkSnapshot);
+                    return map;
+                },
+                MyHashMapBenchmark::lookupAll);
+        run("putAll(MyHashMap), presized", size,
+                n -> {
+                    MyHashMap<Integer, String> map = new MyHashMap<>();
+                    map.putAll(snapshot);
+                    return map;
+                },
+                MyHashMapBenchmark::lookupAll);
+
+        int rounds = Math.max(1, Math.min(50, 5_000_000 / size));
+        for(boolean parallel : new boolean[]{false, true}) {
+            long total = 0;
+            long start = System.nanoTime();
+            for(int round = 0; round < rounds; round++) {
+                total += (parallel ? snapshot.parallelStream() : snapshot.stream())
+                        .mapToLong(entry -> entry.getKey() + entry.getValue().length())
+                        .sum();
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%-28s scan %8.1f ns/entry (checksum %d)%n",
+                    parallel ? "parallelStream()" : "stream()", (double) nanos / ((long) size * rounds), total);
+        }
+    }
+
+    private static long lookupAll(MyHashMap<Integer, String> map, int size) {
+        long found = 0;
+        for(int i = 0; i < size; i++) if(map.get(i) != null) found++;
+        return found;
+    }
+
+    static <M> void run(String name, int size, IntFunction<M> build, Lookup<M> lookup) {
+        // small maps are repeated so each measurement covers enough work to be visible
+        int rounds = Math.max(1, Math.min(50, 5_000_000 / size));
+        for(int warmup = 0; warmup < 3 && size <= 1_000_000; warmup++) {
+            lookup.lookupAll(build.apply(size), size);
+        }
+
+        long heapBefore = usedHeap();
+        long buildNanos = 0;
+        long lookupNanos = 0;
+        long found = 0;
+        M map = null;
+        for(int round = 0; round < rounds; round++) {
+            map = null;
+            long start = System.nanoTime();
+            map = build.apply(size);
+            buildNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            found += lookup.lookupAll(map, size);
+            lookupNanos += System.nanoTime() - start;
+        }
+        long retained = usedHeap() - heapBefore;
+        long ops = (long) size * rounds;
+        System.out.printf("%-28s put %8.1f ns/op   get %8.1f ns/op   retained ~%,d bytes (%.1f bytes/entry)%n",
+                name, (double) buildNanos / ops, (double) lookupNanos / ops, retained,
+                (double) retained / size);
+        if(found != ops || map == null) {
+            throw new IllegalStateException(name + " lost entries");
+        }
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
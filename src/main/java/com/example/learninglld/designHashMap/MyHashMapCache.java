@@ -0,0 +1,428 @@
+package com.example.learninglld.designHashMap;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/*
+    Bounded cache built on MyHashMap. The map finds the node for a key and intrusive
+    doubly linked lists keep the eviction and expiry order, so every operation is O(1).
+
+    LRU keeps one access-ordered list and evicts its head.
+    W_TINY_LFU keeps a small LRU window (1% of the capacity) in front of a segmented LRU
+    (probation + protected). When the window overflows, its oldest entry competes with the
+    oldest probation entry and the one that a frequency sketch has seen less often is evicted.
+    This keeps one-hit wonders from flushing out popular entries.
+
+    All operations hold one ReentrantLock, so the cache can be shared between threads.
+    Loading a missing value in getOrLoad runs outside the lock.
+ */
+public class MyHashMapCache<K,V> {
+    private enum Queue { WINDOW, PROBATION, PROTECTED }
+
+    static final class Node<K,V> {
+        final K key;
+        V value;
+        int weight;
+        long writeTime;
+        long accessTime;
+        Queue queue;
+        Node<K,V> prev;
+        Node<K,V> next;
+        Node<K,V> writePrev;
+        Node<K,V> writeNext;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    // access ordered list of nodes, head is the least recently used
+    static final class AccessList<K,V> {
+        Node<K,V> head;
+        Node<K,V> tail;
+        long weight;
+
+        void addLast(Node<K,V> node) {
+            node.prev = tail;
+            node.next = null;
+            if(tail == null) head = node; else tail.next = node;
+            tail = node;
+            weight += node.weight;
+        }
+
+        void unlink(Node<K,V> node) {
+            if(node.prev == null) head = node.next; else node.prev.next = node.next;
+            if(node.next == null) tail = node.prev; else node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+
+        void moveToLast(Node<K,V> node) {
+            if(tail != node) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /*
+        Count-min sketch of 4-bit counters used by W-TinyLFU to estimate how often a key was seen.
+        All counters are halved once the number of increments reaches ten times the capacity,
+        so old popularity fades out.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {0x97cb3127L, 0xb492b66fL, 0x9ae16a3bL, 0xcbf29ce4L};
+        private final byte[] counters;
+        private final int mask;
+        private final long sampleSize;
+        private long additions;
+
+        FrequencySketch(long maximum) {
+            int width = (int) Math.min(1 << 30, Math.max(16, Long.highestOneBit(Math.max(1, maximum) * 4)));
+            counters = new byte[width];
+            mask = width - 1;
+            sampleSize = Math.max(10, 10 * Math.min(maximum, Integer.MAX_VALUE));
+        }
+
+        private int indexOf(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += h >>> 32;
+            return (int) h & mask;
+        }
+
+        int frequency(int hash) {
+            int frequency = 15;
+            for(int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, counters[indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            for(int row = 0; row < SEEDS.length; row++) {
+                int index = indexOf(hash, row);
+                if(counters[index] < 15) {
+                    counters[index]++;
+                }
+            }
+            if(++additions >= sampleSize) {
+                for(int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+    }
+
+    private final MyHashMap<K, Node<K,V>> data = new MyHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final EvictionPolicy evictionPolicy;
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final LongSupplier ticker;
+    private final FrequencySketch sketch;
+
+    private final AccessList<K,V> window = new AccessList<>();
+    private final AccessList<K,V> probation = new AccessList<>();
+    private final AccessList<K,V> protectedList = new AccessList<>();
+    private Node<K,V> writeHead;
+    private Node<K,V> writeTail;
+    private long totalWeight;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expiredCount;
+
+    MyHashMapCache(MyHashMapCacheBuilder<K,V> builder) {
+        this.evictionPolicy = builder.evictionPolicy;
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.ticker = builder.ticker;
+        if(evictionPolicy == EvictionPolicy.W_TINY_LFU) {
+            this.windowMaximum = Math.max(1, maximumWeight / 100);
+            this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+            this.sketch = new FrequencySketch(maximumWeight);
+        }
+        else {
+            this.windowMaximum = maximumWeight;
+            this.protectedMaximum = 0;
+            this.sketch = null;
+        }
+    }
+
+    public static <K,V> MyHashMapCacheBuilder<K,V> builder() {
+        return new MyHashMapCacheBuilder<>();
+    }
+
+    public V get(K key) {
+        lock.lock();
+        try {
+            long now = ticker.getAsLong();
+            expireEntries(now);
+            recordFrequency(key);
+            Node<K,V> node = data.get(key);
+            if(node != null && isExpired(node, now)) {
+                expire(node);
+                node = null;
+            }
+            if(node == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            node.accessTime = now;
+            onAccess(node);
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // returns the cached value, or loads, caches and returns it; a null from the loader is not cached
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if(value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if(value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        if(value == null) {
+            throw new NullPointerException("MyHashMapCache does not store null values");
+        }
+        int weight = weigher.applyAsInt(key, value);
+        lock.lock();
+        try {
+            long now = ticker.getAsLong();
+            expireEntries(now);
+            Node<K,V> node = data.get(key);
+            if(node == null) {
+                recordFrequency(key);
+                node = new Node<>(key);
+                node.value = value;
+                node.weight = weight;
+                node.writeTime = now;
+                node.accessTime = now;
+                data.put(key, node);
+                node.queue = Queue.WINDOW;
+                window.addLast(node);
+                totalWeight += weight;
+                linkWrite(node);
+            }
+            else {
+                listOf(node).unlink(node);
+                totalWeight -= node.weight;
+                node.value = value;
+                node.weight = weight;
+                node.writeTime = now;
+                node.accessTime = now;
+                listOf(node).addLast(node);
+                totalWeight += weight;
+                unlinkWrite(node);
+                linkWrite(node);
+                onAccess(node);
+            }
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V invalidate(K key) {
+        lock.lock();
+        try {
+            Node<K,V> node = data.get(key);
+            if(node == null) {
+                return null;
+            }
+            removeNode(node);
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            data.clear();
+            window.head = window.tail = null;
+            probation.head = probation.tail = null;
+            protectedList.head = protectedList.tail = null;
+            window.weight = probation.weight = protectedList.weight = 0;
+            writeHead = writeTail = null;
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return data.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long weightedSize() {
+        lock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public MyHashMapCacheStats stats() {
+        lock.lock();
+        try {
+            return new MyHashMapCacheStats(hitCount, missCount, evictionCount, expiredCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordFrequency(K key) {
+        if(sketch != null) {
+            sketch.increment(MyHashMap.hash(key));
+        }
+    }
+
+    private AccessList<K,V> listOf(Node<K,V> node) {
+        switch (node.queue) {
+            case PROBATION:
+                return probation;
+            case PROTECTED:
+                return protectedList;
+            default:
+                return window;
+        }
+    }
+
+    private void onAccess(Node<K,V> node) {
+        if(node.queue == Queue.PROBATION) {
+            // a second hit promotes the entry; demote the oldest protected entry if that segment is full
+            probation.unlink(node);
+            node.queue = Queue.PROTECTED;
+            protectedList.addLast(node);
+            while(protectedList.weight > protectedMaximum && protectedList.head != null && protectedList.head != node) {
+                Node<K,V> demoted = protectedList.head;
+                protectedList.unlink(demoted);
+                demoted.queue = Queue.PROBATION;
+                probation.addLast(demoted);
+            }
+        }
+        else {
+            listOf(node).moveToLast(node);
+        }
+    }
+
+    private void evict() {
+        if(evictionPolicy == EvictionPolicy.LRU) {
+            while(totalWeight > maximumWeight && window.head != null) {
+                evictNode(window.head);
+            }
+            return;
+        }
+        // entries leaving the window become candidates at the tail of probation
+        while(window.weight > windowMaximum && window.head != null) {
+            Node<K,V> candidate = window.head;
+            window.unlink(candidate);
+            candidate.queue = Queue.PROBATION;
+            probation.addLast(candidate);
+        }
+        while(totalWeight > maximumWeight) {
+            Node<K,V> victim = probation.head;
+            Node<K,V> candidate = probation.tail;
+            if(victim == null) {
+                victim = protectedList.head != null ? protectedList.head : window.head;
+                evictNode(victim);
+            }
+            else if(victim == candidate) {
+                evictNode(victim);
+            }
+            else if(sketch.frequency(MyHashMap.hash(candidate.key)) > sketch.frequency(MyHashMap.hash(victim.key))) {
+                evictNode(victim);
+            }
+            else {
+                evictNode(candidate);
+            }
+        }
+    }
+
+    private void evictNode(Node<K,V> node) {
+        removeNode(node);
+        evictionCount++;
+    }
+
+    private void removeNode(Node<K,V> node) {
+        data.remove(node.key);
+        listOf(node).unlink(node);
+        unlinkWrite(node);
+        totalWeight -= node.weight;
+    }
+
+    private boolean isExpired(Node<K,V> node, long now) {
+        return (expireAfterWriteNanos >= 0 && now - node.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos >= 0 && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    /*
+        The write-ordered list and each access-ordered list are roughly oldest first, so only their
+        heads are checked here. get also checks the entry it found, so nothing expired is returned.
+     */
+    private void expireEntries(long now) {
+        if(expireAfterWriteNanos >= 0) {
+            while(writeHead != null && isExpired(writeHead, now)) {
+                expire(writeHead);
+            }
+        }
+        if(expireAfterAccessNanos >= 0) {
+            expireHeads(window, now);
+            expireHeads(probation, now);
+            expireHeads(protectedList, now);
+        }
+    }
+
+    private void expireHeads(AccessList<K,V> list, long now) {
+        while(list.head != null && isExpired(list.head, now)) {
+            expire(list.head);
+        }
+    }
+
+    private void expire(Node<K,V> node) {
+        removeNode(node);
+        expiredCount++;
+    }
+
+    private void linkWrite(Node<K,V> node) {
+        node.writePrev = writeTail;
+        node.writeNext = null;
+        if(writeTail == null) writeHead = node; else writeTail.writeNext = node;
+        writeTail = node;
+    }
+
+    private void unlinkWrite(Node<K,V> node) {
+        if(node.writePrev == null) writeHead = node.writeNext; else node.writePrev.writeNext = node.writeNext;
+        if(node.writeNext == null) writeTail = node.writePrev; else node.writeNext.writePrev = node.writePrev;
+        node.writePrev = null;
+        node.writeNext = null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.learninglld.designHashMap;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+public class MyHashMapCacheBuilder<K,V> {
+    long maximumWeight = -1;
+    ToIntBiFunction<? super K, ? super V> weigher = (key, value) -> 1;
+    EvictionPolicy evictionPolicy = EvictionPolicy.W_TINY_LFU;
+    long expireAfterWriteNanos = -1;
+    long expireAfterAccessNanos = -1;
+    LongSupplier ticker = System::nanoTime;
+
+    // bound the cache by number of entries
+    public MyHashMapCacheBuilder<K,V> setMaximumSize(long maximumSize) {
+        this.maximumWeight = maximumSize;
+        this.weigher = (key, value) -> 1;
+        return this;
+    }
+
+    // bound the cache by the sum of weigher(key, value) over all entries
+    public MyHashMapCacheBuilder<K,V> setMaximumWeight(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        return this;
+    }
+
+    public MyHashMapCacheBuilder<K,V> setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
+    public MyHashMapCacheBuilder<K,V> setExpireAfterWrite(Duration duration) {
+        this.expireAfterWriteNanos = duration.toNanos();
+        return this;
+    }
+
+    public MyHashMapCacheBuilder<K,V> setExpireAfterAccess(Duration duration) {
+        this.expireAfterAccessNanos = duration.toNanos();
+        return this;
+    }
+
+    // source of nanosecond time, replaceable to control expiry in tests
+    public MyHashMapCacheBuilder<K,V> setTicker(LongSupplier ticker) {
+        this.ticker = ticker;
+        return this;
+    }
+
+    public MyHashMapCache<K,V> build() {
+        if(maximumWeight <= 0) {
+            throw new IllegalStateException("maximum size or weight must be set");
+        }
+        return new MyHashMapCache<>(this);
+    }
+}
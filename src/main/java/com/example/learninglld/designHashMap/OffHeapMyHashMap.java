@@ -0,0 +1,363 @@
+package com.example.learninglld.designHashMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+    MyHashMap whose bucket array and entries live in a memory-mapped file instead of the heap.
+
+    File layout (all offsets are bytes from the start of the file):
+        header   MAGIC, version, key/value sizes, clean flag, capacity, size,
+                 bucket array offset, end of used space, free list head
+        buckets  capacity longs, each the offset of the first entry of the chain (0 = empty)
+        entries  [long next][int hash][key bytes][value bytes], padded to 8 bytes
+
+    Keys are compared and hashed by their serialized bytes, so the file means the same thing
+    in every process. Reopening an existing file only maps it, so get works immediately.
+
+    Resize works like MyHashMap: a doubled bucket array is appended to the file and every chain
+    is split in place by relinking the entries. The old bucket array is recycled into the free
+    list, which is also where removed entries go.
+
+    Not thread safe. The file is flagged dirty while it has unflushed changes, and a file that
+    was not flushed or closed cleanly is refused on open.
+ */
+public class OffHeapMyHashMap<K,V> implements AutoCloseable {
+    private static final long MAGIC = 0x4D79486173684D70L; // "MyHashMp"
+    private static final int VERSION = 1;
+
+    private static final long MAGIC_OFFSET = 0;
+    private static final long VERSION_OFFSET = 8;
+    private static final long KEY_SIZE_OFFSET = 12;
+    private static final long VALUE_SIZE_OFFSET = 16;
+    private static final long CLEAN_OFFSET = 20;
+    private static final long CAPACITY_OFFSET = 24;
+    private static final long SIZE_OFFSET = 32;
+    private static final long BUCKETS_OFFSET = 40;
+    private static final long END_OFFSET = 48;
+    private static final long FREE_LIST_OFFSET = 56;
+    private static final long HEADER_SIZE = 64;
+
+    private static final long ENTRY_NEXT = 0;
+    private static final long ENTRY_HASH = 8;
+    private static final long ENTRY_KEY = 12;
+
+    private static final long NO_ENTRY = 0; // offset 0 is the header, never an entry
+    private static final double LOAD_FACTOR = 0.75;
+    private static final long MIN_MAPPED_SIZE = 1<<20;
+
+    private final FileChannel channel;
+    private final OffHeapSerializer<K> keySerializer;
+    private final OffHeapSerializer<V> valueSerializer;
+    private final long valueOffset;
+    private final long entrySize;
+    private final MemorySegment keyScratch;
+
+    private Arena arena;
+    private MemorySegment segment;
+    private long capacity;
+    private long size;
+    private long bucketsOffset;
+    private long end;
+    private long freeList;
+    private boolean dirty;
+    private boolean opened;
+
+    private OffHeapMyHashMap(FileChannel channel, OffHeapSerializer<K> keySerializer, OffHeapSerializer<V> valueSerializer) {
+        this.channel = channel;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.valueOffset = ENTRY_KEY + keySerializer.size();
+        this.entrySize = align(valueOffset + valueSerializer.size());
+        this.keyScratch = MemorySegment.ofArray(new byte[keySerializer.size()]);
+    }
+
+    public static <K,V> OffHeapMyHashMap<K,V> open(Path file, OffHeapSerializer<K> keySerializer,
+                                                   OffHeapSerializer<V> valueSerializer) throws IOException {
+        return open(file, keySerializer, valueSerializer, 1<<4);
+    }
+
+    /*
+        Maps an existing file, or creates one sized for initialCapacity buckets.
+        initialCapacity is ignored when the file already exists.
+     */
+    public static <K,V> OffHeapMyHashMap<K,V> open(Path file, OffHeapSerializer<K> keySerializer,
+                                                   OffHeapSerializer<V> valueSerializer, long initialCapacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        OffHeapMyHashMap<K,V> map = new OffHeapMyHashMap<>(channel, keySerializer, valueSerializer);
+        try {
+            if(channel.size() == 0) {
+                map.create(Math.max(2, Long.highestOneBit(Math.max(1, initialCapacity - 1)) << 1));
+            }
+            else {
+                map.load();
+            }
+            map.opened = true;
+        } catch (IOException | RuntimeException e) {
+            map.close();
+            throw e;
+        }
+        return map;
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private void create(long initialCapacity) throws IOException {
+        capacity = initialCapacity;
+        bucketsOffset = HEADER_SIZE;
+        end = align(bucketsOffset + capacity * Long.BYTES);
+        remap(Math.max(MIN_MAPPED_SIZE, end));
+        segment.set(ValueLayout.JAVA_LONG, MAGIC_OFFSET, MAGIC);
+        segment.set(ValueLayout.JAVA_INT, VERSION_OFFSET, VERSION);
+        segment.set(ValueLayout.JAVA_INT, KEY_SIZE_OFFSET, keySerializer.size());
+        segment.set(ValueLayout.JAVA_INT, VALUE_SIZE_OFFSET, valueSerializer.size());
+        size = 0;
+        freeList = NO_ENTRY;
+        writeHeader();
+        flush();
+    }
+
+    private void load() throws IOException {
+        remap(channel.size());
+        if(segment.byteSize() < HEADER_SIZE || segment.get(ValueLayout.JAVA_LONG, MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalStateException("Not an OffHeapMyHashMap file");
+        }
+        if(segment.get(ValueLayout.JAVA_INT, VERSION_OFFSET) != VERSION) {
+            throw new IllegalStateException("Unsupported file version " + segment.get(ValueLayout.JAVA_INT, VERSION_OFFSET));
+        }
+        if(segment.get(ValueLayout.JAVA_INT, KEY_SIZE_OFFSET) != keySerializer.size()
+                || segment.get(ValueLayout.JAVA_INT, VALUE_SIZE_OFFSET) != valueSerializer.size()) {
+            throw new IllegalStateException("File was written with different key/value sizes");
+        }
+        if(segment.get(ValueLayout.JAVA_INT, CLEAN_OFFSET) != 1) {
+            throw new IllegalStateException("File was not closed cleanly");
+        }
+        capacity = segment.get(ValueLayout.JAVA_LONG, CAPACITY_OFFSET);
+        size = segment.get(ValueLayout.JAVA_LONG, SIZE_OFFSET);
+        bucketsOffset = segment.get(ValueLayout.JAVA_LONG, BUCKETS_OFFSET);
+        end = segment.get(ValueLayout.JAVA_LONG, END_OFFSET);
+        freeList = segment.get(ValueLayout.JAVA_LONG, FREE_LIST_OFFSET);
+    }
+
+    private void remap(long newSize) throws IOException {
+        if(arena != null) {
+            arena.close();
+        }
+        arena = Arena.ofShared();
+        // mapping past the end of the file grows it; the new bytes read as zero
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize, arena);
+    }
+
+    private void writeHeader() {
+        segment.set(ValueLayout.JAVA_LONG, CAPACITY_OFFSET, capacity);
+        segment.set(ValueLayout.JAVA_LONG, SIZE_OFFSET, size);
+        segment.set(ValueLayout.JAVA_LONG, BUCKETS_OFFSET, bucketsOffset);
+        segment.set(ValueLayout.JAVA_LONG, END_OFFSET, end);
+        segment.set(ValueLayout.JAVA_LONG, FREE_LIST_OFFSET, freeList);
+    }
+
+    private void markDirty() {
+        if(!dirty) {
+            segment.set(ValueLayout.JAVA_INT, CLEAN_OFFSET, 0);
+            dirty = true;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(K key) {
+        return findEntry(key) != NO_ENTRY;
+    }
+
+    public V get(K key) {
+        long entry = findEntry(key);
+        return entry == NO_ENTRY ? null : valueSerializer.read(segment, entry + valueOffset);
+    }
+
+    public V put(K key, V value) {
+        int hash = serializeKey(key);
+        long entry = findEntry(hash);
+        if(entry != NO_ENTRY) {
+            markDirty();
+            V oldValue = valueSerializer.read(segment, entry + valueOffset);
+            valueSerializer.write(value, segment, entry + valueOffset);
+            return oldValue;
+        }
+
+        entry = allocate(entrySize, true);
+        markDirty();
+        long bucket = bucketSlot(hash, bucketsOffset, capacity);
+        segment.set(ValueLayout.JAVA_LONG, entry + ENTRY_NEXT, segment.get(ValueLayout.JAVA_LONG, bucket));
+        segment.set(ValueLayout.JAVA_INT, entry + ENTRY_HASH, hash);
+        MemorySegment.copy(keyScratch, 0, segment, entry + ENTRY_KEY, keySerializer.size());
+        valueSerializer.write(value, segment, entry + valueOffset);
+        segment.set(ValueLayout.JAVA_LONG, bucket, entry);
+        size++;
+        if(size > capacity * LOAD_FACTOR) {
+            resize();
+        }
+        writeHeader();
+        return null;
+    }
+
+    public V remove(K key) {
+        int hash = serializeKey(key);
+        long slot = bucketSlot(hash, bucketsOffset, capacity);
+        long prev = NO_ENTRY;
+        for(long entry = segment.get(ValueLayout.JAVA_LONG, slot); entry != NO_ENTRY; prev = entry, entry = next(entry)) {
+            if(matches(entry, hash)) {
+                markDirty();
+                V oldValue = valueSerializer.read(segment, entry + valueOffset);
+                if(prev == NO_ENTRY) {
+                    segment.set(ValueLayout.JAVA_LONG, slot, next(entry));
+                }
+                else {
+                    segment.set(ValueLayout.JAVA_LONG, prev + ENTRY_NEXT, next(entry));
+                }
+                pushFree(entry);
+                size--;
+                writeHeader();
+                return oldValue;
+            }
+        }
+        return null;
+    }
+
+    // forces the mapped pages to disk and marks the file as consistent
+    public void flush() {
+        writeHeader();
+        segment.set(ValueLayout.JAVA_INT, CLEAN_OFFSET, 1);
+        segment.force();
+        dirty = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if(opened && segment != null) {
+                flush();
+            }
+        } finally {
+            if(arena != null) {
+                arena.close();
+                arena = null;
+                segment = null;
+            }
+            channel.close();
+        }
+    }
+
+    private int serializeKey(K key) {
+        keySerializer.write(key, keyScratch, 0);
+        // FNV-1a over the key bytes, then the same spreading as MyHashMap
+        long h = 0xcbf29ce484222325L;
+        for(long i = 0; i < keyScratch.byteSize(); i++) {
+            h ^= keyScratch.get(ValueLayout.JAVA_BYTE, i);
+            h *= 0x100000001b3L;
+        }
+        int spread = (int) (h ^ (h >>> 32)) * 0x9E3779B9;
+        return spread ^ (spread >>> 16);
+    }
+
+    private long findEntry(K key) {
+        return findEntry(serializeKey(key));
+    }
+
+    // looks up the key currently held in keyScratch
+    private long findEntry(int hash) {
+        long entry = segment.get(ValueLayout.JAVA_LONG, bucketSlot(hash, bucketsOffset, capacity));
+        while(entry != NO_ENTRY) {
+            if(matches(entry, hash)) {
+                return entry;
+            }
+            entry = next(entry);
+        }
+        return NO_ENTRY;
+    }
+
+    private boolean matches(long entry, int hash) {
+        if(segment.get(ValueLayout.JAVA_INT, entry + ENTRY_HASH) != hash) {
+            return false;
+        }
+        long keyStart = entry + ENTRY_KEY;
+        return MemorySegment.mismatch(segment, keyStart, keyStart + keySerializer.size(),
+                keyScratch, 0, keySerializer.size()) == -1;
+    }
+
+    private long next(long entry) {
+        return segment.get(ValueLayout.JAVA_LONG, entry + ENTRY_NEXT);
+    }
+
+    private static long bucketSlot(int hash, long bucketsOffset, long capacity) {
+        return bucketsOffset + ((hash & 0xffffffffL) & (capacity - 1)) * Long.BYTES;
+    }
+
+    private long allocate(long bytes, boolean entry) {
+        if(entry && freeList != NO_ENTRY) {
+            long free = freeList;
+            freeList = next(free);
+            return free;
+        }
+        long offset = end;
+        long newEnd = align(offset + bytes);
+        if(newEnd > segment.byteSize()) {
+            try {
+                remap(Math.max(newEnd, segment.byteSize() * 2));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        end = newEnd;
+        return offset;
+    }
+
+    private void pushFree(long entry) {
+        segment.set(ValueLayout.JAVA_LONG, entry + ENTRY_NEXT, freeList);
+        freeList = entry;
+    }
+
+    /*
+        Appends a doubled bucket array and relinks every entry into it. Entries are never moved,
+        only their next pointers change, so this touches each entry once.
+     */
+    private void resize() {
+        long oldCapacity = capacity;
+        long oldBuckets = bucketsOffset;
+        long newCapacity = oldCapacity << 1;
+        long newBuckets = allocate(newCapacity * Long.BYTES, false);
+        segment.asSlice(newBuckets, newCapacity * Long.BYTES).fill((byte) 0);
+
+        for(long i = 0; i < oldCapacity; i++) {
+            long entry = segment.get(ValueLayout.JAVA_LONG, oldBuckets + i * Long.BYTES);
+            while(entry != NO_ENTRY) {
+                long nextEntry = next(entry);
+                int hash = segment.get(ValueLayout.JAVA_INT, entry + ENTRY_HASH);
+                long slot = bucketSlot(hash, newBuckets, newCapacity);
+                segment.set(ValueLayout.JAVA_LONG, entry + ENTRY_NEXT, segment.get(ValueLayout.JAVA_LONG, slot));
+                segment.set(ValueLayout.JAVA_LONG, slot, entry);
+                entry = nextEntry;
+            }
+        }
+        capacity = newCapacity;
+        bucketsOffset = newBuckets;
+
+        // the old bucket array is dead space now, hand it out as entry slots
+        for(long offset = align(oldBuckets); offset + entrySize <= oldBuckets + oldCapacity * Long.BYTES; offset += entrySize) {
+            pushFree(offset);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.learninglld.designHashMap;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+/*
+    Writes keys or values of OffHeapMyHashMap as fixed-size records.
+    Every value must serialize to exactly size() bytes, so entries can live in a flat file.
+ */
+public interface OffHeapSerializer<T> {
+    int size();
+
+    void write(T value, MemorySegment segment, long offset);
+
+    T read(MemorySegment segment, long offset);
+
+    static OffHeapSerializer<Integer> ofInt() {
+        return new OffHeapSerializer<>() {
+            public int size() {
+                return Integer.BYTES;
+            }
+
+            public void write(Integer value, MemorySegment segment, long offset) {
+                segment.set(ValueLayout.JAVA_INT_UNALIGNED, offset, value);
+            }
+
+            public Integer read(MemorySegment segment, long offset) {
+                return segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+            }
+        };
+    }
+
+    static OffHeapSerializer<Long> ofLong() {
+        return new OffHeapSerializer<>() {
+            public int size() {
+                return Long.BYTES;
+            }
+
+            public void write(Long value, MemorySegment segment, long offset) {
+                segment.set(ValueLayout.JAVA_LONG_UNALIGNED, offset, value);
+            }
+
+            public Long read(MemorySegment segment, long offset) {
+                return segment.get(ValueLayout.JAVA_LONG_UNALIGNED, offset);
+            }
+        };
+    }
+
+    static OffHeapSerializer<Double> ofDouble() {
+        return new OffHeapSerializer<>() {
+            public int size() {
+                return Double.BYTES;
+            }
+
+            public void write(Double value, MemorySegment segment, long offset) {
+                segment.set(ValueLayout.JAVA_DOUBLE_UNALIGNED, offset, value);
+            }
+
+            public Double read(MemorySegment segment, long offset) {
+                return segment.get(ValueLayout.JAVA_DOUBLE_UNALIGNED, offset);
+            }
+        };
+    }
+
+    // UTF-8 string stored as a length prefix followed by at most maxBytes bytes, zero padded
+    static OffHeapSerializer<String> ofString(int maxBytes) {
+        return new OffHeapSerializer<>() {
+            public int size() {
+                return Integer.BYTES + maxBytes;
+            }
+
+            public void write(String value, MemorySegment segment, long offset) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if(bytes.length > maxBytes) {
+                    throw new IllegalArgumentException("String is " + bytes.length + " bytes, limit is " + maxBytes);
+                }
+                segment.set(ValueLayout.JAVA_INT_UNALIGNED, offset, bytes.length);
+                MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, offset + Integer.BYTES, bytes.length);
+                segment.asSlice(offset + Integer.BYTES + bytes.length, maxBytes - bytes.length).fill((byte) 0);
+            }
+
+            public String read(MemorySegment segment, long offset) {
+                int length = segment.get(ValueLayout.JAVA_INT_UNALIGNED, offset);
+                byte[] bytes = new byte[length];
+                MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset + Integer.BYTES, bytes, 0, length);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
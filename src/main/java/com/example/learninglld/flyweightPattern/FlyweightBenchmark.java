@@ -0,0 +1,57 @@
+package com.example.learninglld.flyweightPattern;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+
+/*
+    Throughput and allocation per robot of the three flyweight tests:
+        testFlyweight1  a full Robot object with its own Sprites per robot
+        testFlyweight2  one shared flyweight, display(x, y) builds and prints a String per robot
+        testFlyweight3  one shared flyweight, robots batched into primitive arrays and rendered
+                        into a reusable byte buffer
+    System.out is swapped for a stream that discards its input, so the numbers show the cost of
+    producing the output rather than of a terminal.
+
+        java -cp target/classes com.example.learninglld.flyweightPattern.FlyweightBenchmark [robots]
+ */
+public class FlyweightBenchmark {
+    private static final int DEFAULT_ROBOTS = 10_000_000;
+
+    interface Test {
+        void run(int robots);
+    }
+
+    public static void main(String[] args) {
+        int robots = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROBOTS;
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            // warm up with a smaller run so each measurement sees compiled code
+            for(int warmup = 0; warmup < 3; warmup++) {
+                testFlyweightPattern.testFlyweight1(robots / 10);
+                testFlyweightPattern.testFlyweight2(robots / 10);
+                testFlyweightPattern.testFlyweight3(robots / 10);
+            }
+            console.printf("%,d robots%n", robots);
+            run(console, "testFlyweight1 (objects)", robots, testFlyweightPattern::testFlyweight1);
+            run(console, "testFlyweight2 (display)", robots, testFlyweightPattern::testFlyweight2);
+            run(console, "testFlyweight3 (batched)", robots, testFlyweightPattern::testFlyweight3);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    static void run(PrintStream console, String name, int robots, Test test) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        test.run(robots);
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        console.printf("%-26s %,12.0f robots/s  %8.1f ns/robot  %,14d bytes allocated (%.1f bytes/robot, %,.0f MB/s)%n",
+                name, robots * 1e9 / nanos, (double) nanos / robots, allocated, (double) allocated / robots,
+                allocated / 1e6 / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.learninglld.flyweightPattern;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/*
+    Thread-safe store of shared flyweights, used by RoboticFactory and LetterFactory.
+    A hit is a single ConcurrentHashMap read. A miss creates the flyweight inside
+    ConcurrentHashMap.compute, so two threads asking for the same key at once still share
+    one instance.
+
+    With SOFT or WEAK references the GC may reclaim flyweights nobody is using. The next
+    request then creates a fresh one. Cleared entries are purged on the next miss.
+    The registry holds at most maximumSize flyweights. Past that, new flyweights are still
+    created and returned, but they are not registered.
+ */
+public class FlyweightRegistry<K, V> {
+    private interface Ref<K, V> {
+        V get();
+    }
+
+    private static final class StrongRef<K, V> implements Ref<K, V> {
+        private final V value;
+
+        StrongRef(V value) {
+            this.value = value;
+        }
+
+        @Override
+        public V get() {
+            return value;
+        }
+    }
+
+    private static final class SoftRef<K, V> extends SoftReference<V> implements Ref<K, V> {
+        final K key;
+
+        SoftRef(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    private static final class WeakRef<K, V> extends WeakReference<V> implements Ref<K, V> {
+        final K key;
+
+        WeakRef(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Ref<K, V>> flyweights = new ConcurrentHashMap<>();
+    private final ReferenceQueue<V> cleared = new ReferenceQueue<>();
+    private final ReferenceStrength strength;
+    private final int maximumSize;
+    private final ToLongFunction<? super V> sizeEstimator;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public FlyweightRegistry() {
+        this(ReferenceStrength.STRONG, Integer.MAX_VALUE, value -> 0);
+    }
+
+    // sizeEstimator gives the approximate bytes of one flyweight, used for the memory-saved statistic
+    public FlyweightRegistry(ReferenceStrength strength, int maximumSize, ToLongFunction<? super V> sizeEstimator) {
+        if(maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.strength = strength;
+        this.maximumSize = maximumSize;
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    // returns the shared flyweight for key, creating it with factory on first use
+    public V get(K key, Function<? super K, ? extends V> factory) {
+        Ref<K, V> ref = flyweights.get(key);
+        V value = ref == null ? null : ref.get();
+        if(value != null) {
+            recordHit(value);
+            return value;
+        }
+        purgeCleared();
+
+        // [0] the flyweight, [1] Boolean.TRUE if this call created it
+        Object[] result = new Object[2];
+        flyweights.compute(key, (k, old) -> {
+            V existing = old == null ? null : old.get();
+            if(existing != null) {
+                result[0] = existing;
+                return old;
+            }
+            if(old == null && flyweights.size() >= maximumSize) {
+                return null;
+            }
+            V created = factory.apply(k);
+            result[0] = created;
+            result[1] = Boolean.TRUE;
+            return created == null ? null : newRef(k, created);
+        });
+
+        @SuppressWarnings("unchecked")
+        V found = (V) result[0];
+        if(found == null && result[1] == null) {
+            // the registry is full: hand out an unshared instance
+            rejectedCount.increment();
+            missCount.increment();
+            return factory.apply(key);
+        }
+        if(result[1] == null) {
+            // another thread registered it first
+            recordHit(found);
+        }
+        else {
+            missCount.increment();
+        }
+        return found;
+    }
+
+    public int size() {
+        return flyweights.size();
+    }
+
+    public void clear() {
+        flyweights.clear();
+    }
+
+    public FlyweightStats stats() {
+        return new FlyweightStats(hitCount.sum(), missCount.sum(), rejectedCount.sum(), flyweights.size(), bytesSaved.sum());
+    }
+
+    private void recordHit(V value) {
+        hitCount.increment();
+        bytesSaved.add(sizeEstimator.applyAsLong(value));
+    }
+
+    private Ref<K, V> newRef(K key, V value) {
+        switch (strength) {
+            case SOFT:
+                return new SoftRef<>(key, value, cleared);
+            case WEAK:
+                return new WeakRef<>(key, value, cleared);
+            default:
+                return new StrongRef<>(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void purgeCleared() {
+        Reference<? extends V> reference;
+        while((reference = cleared.poll()) != null) {
+            K key = reference instanceof SoftRef ? ((SoftRef<K, V>) reference).key : ((WeakRef<K, V>) reference).key;
+            flyweights.remove(key, reference);
+        }
+    }
+}
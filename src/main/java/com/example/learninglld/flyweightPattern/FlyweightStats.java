@@ -0,0 +1,54 @@
+package com.example.learninglld.flyweightPattern;
+
+public class FlyweightStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long rejectedCount;
+    private final long size;
+    private final long estimatedBytesSaved;
+
+    public FlyweightStats(long hitCount, long missCount, long rejectedCount, long size, long estimatedBytesSaved) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.rejectedCount = rejectedCount;
+        this.size = size;
+        this.estimatedBytesSaved = estimatedBytesSaved;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    // flyweights created but not registered because the registry was full
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    // bytes that would have been allocated if every hit had created its own instance
+    public long getEstimatedBytesSaved() {
+        return estimatedBytesSaved;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    public double getHitRate() {
+        long requests = getRequestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + hitCount + ", misses=" + missCount + ", hitRate=" + String.format("%.3f", getHitRate())
+                + ", rejected=" + rejectedCount + ", size=" + size + ", estimatedBytesSaved=" + estimatedBytesSaved;
+    }
+}
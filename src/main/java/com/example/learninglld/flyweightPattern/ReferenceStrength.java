@@ -0,0 +1,11 @@
+package com.example.learninglld.flyweightPattern;
+
+// how a FlyweightRegistry holds on to its flyweights
+public enum ReferenceStrength {
+    // kept until the registry is cleared
+    STRONG,
+    // reclaimed by the GC under memory pressure, e.g. for large sprites
+    SOFT,
+    // reclaimed as soon as no caller holds the flyweight any more
+    WEAK
+}
@@ -2,14 +2,23 @@ package com.example.learninglld.flyweightPattern;
 
 import com.example.learninglld.flyweightPattern.withFlyweight.HumanoidRobot;
 import com.example.learninglld.flyweightPattern.withFlyweight.IRobot;
+import com.example.learninglld.flyweightPattern.withFlyweight.RobotBatch;
+import com.example.learninglld.flyweightPattern.withFlyweight.RobotRenderBuffer;
+import com.example.learninglld.flyweightPattern.withFlyweight.RobotType;
 import com.example.learninglld.flyweightPattern.withFlyweight.RoboticFactory;
 import com.example.learninglld.flyweightPattern.withoutFlyweight.Robot;
 import com.example.learninglld.flyweightPattern.withoutFlyweight.Sprites;
 
 public class testFlyweightPattern {
+    private static final int BATCH_SIZE = 4096;
+
     public static void testFlyweight1() {
+        testFlyweight1(500000);
+    }
+
+    public static void testFlyweight1(int count) {
         Integer size = 0;
-        for (int i = 0; i < 500000; i++) {
+        for (int i = 0; i < count; i++) {
             Robot robot = new Robot();
             robot.setType("HUMANOID");
             robot.setSprite(new Sprites());
@@ -21,10 +30,37 @@ public class testFlyweightPattern {
     }
 
     public static void testFlyweight2() {
+        testFlyweight2(500000);
+    }
+
+    public static void testFlyweight2(int count) {
         RoboticFactory roboticFactory = new RoboticFactory();
         IRobot humanoidRobot = roboticFactory.getRobot("HUMANOID");
-        for (int i = 0; i < 500000; i++) {
+        for (int i = 0; i < count; i++) {
             humanoidRobot.display(i % 100, i / 100);
         }
     }
+
+    public static void testFlyweight3() {
+        testFlyweight3(500000);
+    }
+
+    /*
+        Same output as testFlyweight2, but the extrinsic state goes into a reusable RobotBatch
+        and each full batch is rendered into one reusable buffer, so nothing is allocated per robot.
+     */
+    public static void testFlyweight3(int count) {
+        RoboticFactory roboticFactory = new RoboticFactory();
+        RobotBatch batch = new RobotBatch(BATCH_SIZE);
+        RobotRenderBuffer out = new RobotRenderBuffer(64 * 1024, System.out);
+        for (int i = 0; i < count; i++) {
+            batch.add(RobotType.HUMANOID, i % 100, i / 100);
+            if(batch.size() == BATCH_SIZE) {
+                roboticFactory.render(batch, out);
+                batch.clear();
+            }
+        }
+        roboticFactory.render(batch, out);
+        out.flush();
+    }
 }
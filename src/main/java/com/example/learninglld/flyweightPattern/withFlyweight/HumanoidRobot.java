@@ -2,9 +2,14 @@ package com.example.learninglld.flyweightPattern.withFlyweight;
 
 import com.example.learninglld.flyweightPattern.withoutFlyweight.Sprites;
 
+import java.nio.charset.StandardCharsets;
+
 public class HumanoidRobot implements IRobot {
-    private Sprites sprite;
-    private String type;
+    private static final byte[] PREFIX = "Humanoid robot at (".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEPARATOR = ", ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUFFIX = ")\n".getBytes(StandardCharsets.US_ASCII);
+    private final Sprites sprite;
+    private final String type;
 
     public HumanoidRobot(String type, Sprites sprite) {
         this.type = type;
@@ -23,4 +28,9 @@ public class HumanoidRobot implements IRobot {
     public void display(int x, int y) {
         System.out.println("Humanoid robot at (" + x + ", " + y + ")");
     }
+
+    @Override
+    public void render(int x, int y, RobotRenderBuffer out) {
+        out.write(PREFIX).writeInt(x).write(SEPARATOR).writeInt(y).write(SUFFIX);
+    }
 }
@@ -2,4 +2,7 @@ package com.example.learninglld.flyweightPattern.withFlyweight;
 
 public interface IRobot {
     public void display(int x, int y);
+
+    // writes the line display would print into out, without allocating
+    public void render(int x, int y, RobotRenderBuffer out);
 }
@@ -0,0 +1,76 @@
+package com.example.learninglld.flyweightPattern.withFlyweight;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+    Extrinsic state of many robots in struct-of-arrays form: parallel primitive arrays of type id,
+    x and y. Adding a robot writes three array slots and allocates nothing. The arrays double when
+    full, so a batch that is cleared and refilled reaches its peak size once and then stays allocation-free.
+ */
+public class RobotBatch {
+    private byte[] typeIds;
+    private int[] xs;
+    private int[] ys;
+    private int size;
+
+    // bytes per robot in serialize(): type id, x, y
+    public static final int RECORD_BYTES = 1 + 4 + 4;
+
+    public RobotBatch(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        typeIds = new byte[capacity];
+        xs = new int[capacity];
+        ys = new int[capacity];
+    }
+
+    public void add(RobotType type, int x, int y) {
+        if(size == xs.length) {
+            grow();
+        }
+        typeIds[size] = type.id();
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public byte typeId(int index) {
+        return typeIds[index];
+    }
+
+    public int x(int index) {
+        return xs[index];
+    }
+
+    public int y(int index) {
+        return ys[index];
+    }
+
+    /*
+        Writes robots from index onwards as fixed-size binary records until out is full,
+        and returns the index of the first robot that did not fit, so a caller can drain
+        out and continue from there.
+     */
+    public int serialize(int index, ByteBuffer out) {
+        while(index < size && out.remaining() >= RECORD_BYTES) {
+            out.put(typeIds[index]).putInt(xs[index]).putInt(ys[index]);
+            index++;
+        }
+        return index;
+    }
+
+    private void grow() {
+        int capacity = xs.length * 2;
+        typeIds = Arrays.copyOf(typeIds, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+    }
+}
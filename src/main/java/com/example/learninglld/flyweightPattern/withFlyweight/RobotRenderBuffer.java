@@ -0,0 +1,86 @@
+package com.example.learninglld.flyweightPattern.withFlyweight;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/*
+    Reusable ASCII output buffer for rendering robots. Text is written straight into a byte array,
+    and numbers are formatted digit by digit, so no String is built per robot. The bytes are
+    handed to the sink whenever the buffer fills up and on flush().
+ */
+public class RobotRenderBuffer {
+    // longest value writeInt can produce: "-2147483648"
+    private static final int MAX_INT_CHARS = 11;
+
+    private final byte[] buffer;
+    private final OutputStream sink;
+    private int position;
+
+    public RobotRenderBuffer(int capacity, OutputStream sink) {
+        this.buffer = new byte[Math.max(64, capacity)];
+        this.sink = sink;
+    }
+
+    public RobotRenderBuffer write(byte[] ascii) {
+        if(ascii.length > buffer.length - position) {
+            flush();
+            if(ascii.length > buffer.length) {
+                writeToSink(ascii, ascii.length);
+                return this;
+            }
+        }
+        System.arraycopy(ascii, 0, buffer, position, ascii.length);
+        position += ascii.length;
+        return this;
+    }
+
+    public RobotRenderBuffer write(byte ascii) {
+        if(position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = ascii;
+        return this;
+    }
+
+    public RobotRenderBuffer writeInt(int value) {
+        if(buffer.length - position < MAX_INT_CHARS) {
+            flush();
+        }
+        if(value == Integer.MIN_VALUE) {
+            for(int i = 0; i < MAX_INT_CHARS; i++) {
+                buffer[position++] = (byte) "-2147483648".charAt(i);
+            }
+            return this;
+        }
+        if(value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for(int rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for(int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+        return this;
+    }
+
+    public void flush() {
+        if(position > 0) {
+            writeToSink(buffer, position);
+            position = 0;
+        }
+    }
+
+    private void writeToSink(byte[] bytes, int length) {
+        try {
+            sink.write(bytes, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.learninglld.flyweightPattern.withFlyweight;
+
+// robot kinds known to RoboticFactory; the ordinal is the type id stored in a RobotBatch
+public enum RobotType {
+    HUMANOID,
+    ROBOTICDOG;
+
+    private static final RobotType[] VALUES = values();
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    public byte id() {
+        return (byte) ordinal();
+    }
+
+    public static RobotType fromId(int id) {
+        return VALUES[id];
+    }
+
+    // null for an unknown name
+    public static RobotType fromName(String name) {
+        for(RobotType type : VALUES) {
+            if(type.name().equals(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
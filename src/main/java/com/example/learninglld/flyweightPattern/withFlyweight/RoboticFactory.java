@@ -1,35 +1,65 @@
 package com.example.learninglld.flyweightPattern.withFlyweight;
 
+import com.example.learninglld.flyweightPattern.FlyweightRegistry;
+import com.example.learninglld.flyweightPattern.FlyweightStats;
+import com.example.learninglld.flyweightPattern.ReferenceStrength;
 import com.example.learninglld.flyweightPattern.withoutFlyweight.Sprites;
 
-import java.util.HashMap;
-import java.util.Map;
-
+/*
+    Hands out one shared IRobot per RobotType. The flyweights live in a FlyweightRegistry, so the
+    factory can be shared between threads. With SOFT references, robots whose large sprites are no
+    longer in use can be reclaimed under memory pressure and are recreated when next requested.
+ */
 public class RoboticFactory {
-    Map<String, IRobot> instanceMap;
+    // sprite bitmap plus the robot object itself, matching the estimate in Robot.getSize()
+    private static final long ESTIMATED_ROBOT_BYTES = 100 + 16;
+
+    private final FlyweightRegistry<RobotType, IRobot> instanceMap;
 
     public RoboticFactory() {
-        instanceMap = new HashMap<>();
+        this(ReferenceStrength.STRONG);
+    }
+
+    public RoboticFactory(ReferenceStrength strength) {
+        instanceMap = new FlyweightRegistry<>(strength, RobotType.count(), robot -> ESTIMATED_ROBOT_BYTES);
     }
 
+    // returns null for an unknown type
     public IRobot getRobot(String type) {
-        if(instanceMap.containsKey(type)) {
-            return instanceMap.get(type);
-        }
-        else {
-            if(type == "HUMANOID"){
-                Sprites humanoidSprite = new Sprites();
-                IRobot humanoidObject = new HumanoidRobot(type, humanoidSprite);
-                instanceMap.put(type, humanoidObject);
-                return humanoidObject;
-            }
-            else if(type == "ROBOTICDOG"){
-                Sprites roboticDogSprite = new Sprites();
-                IRobot roboticDogObject = new RoboticDog(type, roboticDogSprite);
-                instanceMap.put(type, roboticDogObject);
-                return roboticDogObject;
+        RobotType robotType = RobotType.fromName(type);
+        return robotType == null ? null : getRobot(robotType);
+    }
+
+    public IRobot getRobot(RobotType type) {
+        return instanceMap.get(type, RoboticFactory::createRobot);
+    }
+
+    // renders every robot in the batch into out; each type is looked up once per call, nothing is allocated per robot
+    public void render(RobotBatch batch, RobotRenderBuffer out) {
+        IRobot[] robotsByType = new IRobot[RobotType.count()];
+        for(int i = 0; i < batch.size(); i++) {
+            byte typeId = batch.typeId(i);
+            IRobot robot = robotsByType[typeId];
+            if(robot == null) {
+                robot = getRobot(RobotType.fromId(typeId));
+                robotsByType[typeId] = robot;
             }
+            robot.render(batch.x(i), batch.y(i), out);
+        }
+    }
+
+    public FlyweightStats stats() {
+        return instanceMap.stats();
+    }
+
+    private static IRobot createRobot(RobotType type) {
+        switch (type) {
+            case HUMANOID:
+                return new HumanoidRobot(type.name(), new Sprites());
+            case ROBOTICDOG:
+                return new RoboticDog(type.name(), new Sprites());
+            default:
+                return null;
         }
-        return null;
     }
 }
@@ -0,0 +1,506 @@
+package com.example.learninglld.flyweightPattern.wordProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Text of a document stored as a rope: an AVL tree whose nodes, read in order, hold the text
+    in chunks of at most MAX_CHUNK chars. Each node also stores its subtree's char count, so any
+    offset is found in O(log n). Insert and delete edit one or a few chunks in place and
+    rebalance along the path, which costs O(log n + chunk size).
+
+    Every chunk has exactly one TextStyle, so the font and size are stored once per chunk instead
+    of once per character. Consecutive chunks with the same style form a style run. Inserting text
+    in a different style splits the chunk it lands in. getCharacter() maps a position back to the
+    shared Letter flyweight for its char and style.
+
+    Not thread-safe; guard a shared Document externally.
+ */
+public class Document {
+    static final int MAX_CHUNK = 512;
+
+    private static final class Node {
+        char[] chars;
+        int length;
+        TextStyle style;
+        Node left;
+        Node right;
+        int height = 1;
+        // chars in this subtree, including this node's chunk
+        int totalLength;
+
+        Node(char[] chars, int length, TextStyle style) {
+            this.chars = chars;
+            this.length = length;
+            this.style = style;
+            this.totalLength = length;
+        }
+    }
+
+    // a maximal stretch of text in one style
+    public static final class StyleRun {
+        private final int start;
+        private final int length;
+        private final TextStyle style;
+
+        StyleRun(int start, int length, TextStyle style) {
+            this.start = start;
+            this.length = length;
+            this.style = style;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public TextStyle getStyle() {
+            return style;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + (start + length) + ") " + style;
+        }
+    }
+
+    private final LetterFactory letterFactory;
+    private Node root;
+    // set by insertIntoChunk: text chars placed in the chunk itself, and the new chunks that follow it
+    private int placed;
+    private final List<Node> pending = new ArrayList<>();
+
+    public Document() {
+        this(new LetterFactory());
+    }
+
+    public Document(LetterFactory letterFactory) {
+        this.letterFactory = letterFactory;
+    }
+
+    public int length() {
+        return totalLength(root);
+    }
+
+    public void insert(int offset, CharSequence text) {
+        insert(offset, text, offset > 0 ? styleAt(offset - 1) : root != null ? styleAt(0) : TextStyle.DEFAULT);
+    }
+
+    public void insert(int offset, CharSequence text, TextStyle style) {
+        checkOffset(offset, length());
+        if(text.length() == 0) {
+            return;
+        }
+        if(root == null) {
+            List<Node> nodes = new ArrayList<>();
+            addChunks(nodes, text, 0, style);
+            root = build(nodes, 0, nodes.size() - 1);
+            return;
+        }
+        placed = 0;
+        root = insert(root, offset, text, style);
+        // the chunks that did not fit go in one by one at the boundary after the edited chunk
+        int boundary = offset + placed;
+        for(Node node : pending) {
+            root = insertNode(root, boundary, node);
+            boundary += node.length;
+        }
+        pending.clear();
+    }
+
+    public void append(CharSequence text, TextStyle style) {
+        insert(length(), text, style);
+    }
+
+    public void delete(int offset, int count) {
+        checkRange(offset, count);
+        if(count > 0) {
+            root = delete(root, offset, offset + count);
+        }
+    }
+
+    // gives [offset, offset + count) a new style
+    public void setStyle(int offset, int count, TextStyle style) {
+        String text = getText(offset, count);
+        delete(offset, count);
+        insert(offset, text, style);
+    }
+
+    public char charAt(int offset) {
+        checkIndex(offset);
+        Node node = root;
+        while(true) {
+            int leftLength = totalLength(node.left);
+            if(offset < leftLength) {
+                node = node.left;
+            }
+            else if(offset < leftLength + node.length) {
+                return node.chars[offset - leftLength];
+            }
+            else {
+                offset -= leftLength + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    public TextStyle styleAt(int offset) {
+        checkIndex(offset);
+        Node node = root;
+        while(true) {
+            int leftLength = totalLength(node.left);
+            if(offset < leftLength) {
+                node = node.left;
+            }
+            else if(offset < leftLength + node.length) {
+                return node.style;
+            }
+            else {
+                offset -= leftLength + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    // the shared flyweight for the character at offset
+    public ICharacter getCharacter(int offset) {
+        return letterFactory.getCharacter(charAt(offset), styleAt(offset));
+    }
+
+    public String getText(int offset, int count) {
+        checkRange(offset, count);
+        StringBuilder text = new StringBuilder(count);
+        appendText(root, offset, offset + count, text);
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getText(0, length());
+    }
+
+    public List<StyleRun> getStyleRuns() {
+        return getStyleRuns(0, length());
+    }
+
+    // the style runs of [offset, offset + count), clipped to that range
+    public List<StyleRun> getStyleRuns(int offset, int count) {
+        checkRange(offset, count);
+        List<StyleRun> runs = new ArrayList<>();
+        collectRuns(root, 0, offset, offset + count, runs);
+        return runs;
+    }
+
+    /*
+        Rebuilds the tree from full chunks. Many small edits leave partly filled chunks behind;
+        compacting packs each style run into as few chunks as possible. O(n).
+     */
+    public void compact() {
+        List<Node> packed = new ArrayList<>();
+        packChunks(root, packed);
+        root = build(packed, 0, packed.size() - 1);
+    }
+
+    // number of chunks, for memory estimates
+    public int chunkCount() {
+        return countNodes(root);
+    }
+
+    private Node insert(Node node, int offset, CharSequence text, TextStyle style) {
+        int leftLength = totalLength(node.left);
+        if(offset < leftLength || (offset == leftLength && node.style != style && node.left != null)) {
+            // at a chunk boundary prefer appending to the chunk before
+            node.left = insert(node.left, offset, text, style);
+        }
+        else if(offset > leftLength + node.length) {
+            node.right = insert(node.right, offset - leftLength - node.length, text, style);
+        }
+        else {
+            insertIntoChunk(node, offset - leftLength, text, style);
+        }
+        return balance(node);
+    }
+
+    /*
+        Inserts text at position within node's chunk. Whatever does not fit, and the part of the
+        chunk after position when it has to be split, is left in pending for insert() to add as
+        new chunks.
+     */
+    private void insertIntoChunk(Node node, int position, CharSequence text, TextStyle style) {
+        int textLength = text.length();
+        if(node.style == style && node.length + textLength <= MAX_CHUNK) {
+            ensureCapacity(node, node.length + textLength);
+            System.arraycopy(node.chars, position, node.chars, position + textLength, node.length - position);
+            for(int i = 0; i < textLength; i++) {
+                node.chars[position + i] = text.charAt(i);
+            }
+            node.length += textLength;
+            placed = textLength;
+            return;
+        }
+        // split the chunk at position: the tail becomes a new chunk after the inserted text
+        Node tail = null;
+        if(position < node.length) {
+            char[] tailChars = new char[node.length - position];
+            System.arraycopy(node.chars, position, tailChars, 0, tailChars.length);
+            tail = new Node(tailChars, tailChars.length, node.style);
+            node.length = position;
+        }
+        if(node.length == 0) {
+            // the whole chunk moved to tail; reuse this node for the inserted text
+            node.style = style;
+        }
+        if(node.style == style) {
+            // fill the rest of this chunk first
+            placed = Math.min(MAX_CHUNK - node.length, textLength);
+            ensureCapacity(node, node.length + placed);
+            for(int i = 0; i < placed; i++) {
+                node.chars[node.length + i] = text.charAt(i);
+            }
+            node.length += placed;
+        }
+        addChunks(pending, text, placed, style);
+        if(tail != null) {
+            pending.add(tail);
+        }
+    }
+
+    private static void addChunks(List<Node> nodes, CharSequence text, int textStart, TextStyle style) {
+        for(int start = textStart; start < text.length(); start += MAX_CHUNK) {
+            int length = Math.min(MAX_CHUNK, text.length() - start);
+            char[] chars = new char[length];
+            for(int i = 0; i < length; i++) {
+                chars[i] = text.charAt(start + i);
+            }
+            nodes.add(new Node(chars, length, style));
+        }
+    }
+
+    // AVL insert of a single chunk at offset, which must be a chunk boundary
+    private Node insertNode(Node node, int offset, Node newNode) {
+        if(node == null) {
+            return newNode;
+        }
+        int leftLength = totalLength(node.left);
+        if(offset <= leftLength) {
+            node.left = insertNode(node.left, offset, newNode);
+        }
+        else {
+            node.right = insertNode(node.right, offset - leftLength - node.length, newNode);
+        }
+        return balance(node);
+    }
+
+    // removes [start, end), relative to this subtree; right side first so the offsets stay valid
+    private Node delete(Node node, int start, int end) {
+        if(node == null || start >= end) {
+            return node;
+        }
+        int leftLength = totalLength(node.left);
+        int ownEnd = leftLength + node.length;
+        if(end > ownEnd) {
+            node.right = delete(node.right, Math.max(0, start - ownEnd), end - ownEnd);
+        }
+        int from = Math.max(start, leftLength);
+        int to = Math.min(end, ownEnd);
+        if(from < to) {
+            System.arraycopy(node.chars, to - leftLength, node.chars, from - leftLength, ownEnd - to);
+            node.length -= to - from;
+        }
+        if(start < leftLength) {
+            node.left = delete(node.left, start, Math.min(end, leftLength));
+        }
+        if(node.length == 0) {
+            return removeNode(node);
+        }
+        return balance(node);
+    }
+
+    private Node removeNode(Node node) {
+        if(node.left == null) {
+            return node.right;
+        }
+        if(node.right == null) {
+            return node.left;
+        }
+        Node successor = leftmost(node.right);
+        successor.right = removeFirst(node.right);
+        successor.left = node.left;
+        return balance(successor);
+    }
+
+    private Node removeFirst(Node node) {
+        if(node.left == null) {
+            return node.right;
+        }
+        node.left = removeFirst(node.left);
+        return balance(node);
+    }
+
+    private static Node leftmost(Node node) {
+        while(node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static void ensureCapacity(Node node, int capacity) {
+        if(node.chars.length < capacity) {
+            char[] grown = new char[Math.min(MAX_CHUNK, Math.max(capacity, node.chars.length * 2))];
+            System.arraycopy(node.chars, 0, grown, 0, node.length);
+            node.chars = grown;
+        }
+    }
+
+    private static int totalLength(Node node) {
+        return node == null ? 0 : node.totalLength;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.totalLength = totalLength(node.left) + node.length + totalLength(node.right);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if(factor > 1) {
+            if(height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if(factor < -1) {
+            if(height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node build(List<Node> nodes, int from, int to) {
+        if(from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = nodes.get(middle);
+        node.left = build(nodes, from, middle - 1);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private static int countNodes(Node node) {
+        return node == null ? 0 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    private static void appendText(Node node, int start, int end, StringBuilder text) {
+        if(node == null || start >= end) {
+            return;
+        }
+        int leftLength = totalLength(node.left);
+        if(start < leftLength) {
+            appendText(node.left, start, Math.min(end, leftLength), text);
+        }
+        int from = Math.max(start, leftLength);
+        int to = Math.min(end, leftLength + node.length);
+        if(from < to) {
+            text.append(node.chars, from - leftLength, to - from);
+        }
+        if(end > leftLength + node.length) {
+            int ownEnd = leftLength + node.length;
+            appendText(node.right, Math.max(0, start - ownEnd), end - ownEnd, text);
+        }
+    }
+
+    // adds the runs of [start, end) found in the subtree whose first char is at offset base
+    private static void collectRuns(Node node, int base, int start, int end, List<StyleRun> runs) {
+        if(node == null || start >= end) {
+            return;
+        }
+        int nodeStart = base + totalLength(node.left);
+        int nodeEnd = nodeStart + node.length;
+        if(start < nodeStart) {
+            collectRuns(node.left, base, start, Math.min(end, nodeStart), runs);
+        }
+        int from = Math.max(start, nodeStart);
+        int to = Math.min(end, nodeEnd);
+        if(from < to) {
+            StyleRun last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            if(last != null && last.style == node.style) {
+                runs.set(runs.size() - 1, new StyleRun(last.start, last.length + to - from, node.style));
+            }
+            else {
+                runs.add(new StyleRun(from, to - from, node.style));
+            }
+        }
+        if(end > nodeEnd) {
+            collectRuns(node.right, nodeEnd, Math.max(start, nodeEnd), end, runs);
+        }
+    }
+
+    private static void packChunks(Node node, List<Node> packed) {
+        if(node == null) {
+            return;
+        }
+        packChunks(node.left, packed);
+        Node last = packed.isEmpty() ? null : packed.get(packed.size() - 1);
+        int copied = 0;
+        if(last != null && last.style == node.style && last.length < MAX_CHUNK) {
+            copied = Math.min(MAX_CHUNK - last.length, node.length);
+            ensureCapacity(last, last.length + copied);
+            System.arraycopy(node.chars, 0, last.chars, last.length, copied);
+            last.length += copied;
+        }
+        if(copied < node.length) {
+            char[] chars = new char[node.length - copied];
+            System.arraycopy(node.chars, copied, chars, 0, chars.length);
+            packed.add(new Node(chars, chars.length, node.style));
+        }
+        packChunks(node.right, packed);
+    }
+
+    private void checkOffset(int offset, int length) {
+        if(offset < 0 || offset > length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length);
+        }
+    }
+
+    private void checkIndex(int offset) {
+        if(offset < 0 || offset >= length()) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length());
+        }
+    }
+
+    private void checkRange(int offset, int count) {
+        if(offset < 0 || count < 0 || offset + count > length()) {
+            throw new IndexOutOfBoundsException("range [" + offset + ", " + (offset + count) + "), length " + length());
+        }
+    }
+}
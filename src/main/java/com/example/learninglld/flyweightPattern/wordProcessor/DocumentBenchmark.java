@@ -0,0 +1,106 @@
+package com.example.learninglld.flyweightPattern.wordProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+    Memory and edit cost of Document against the simplest flyweight layout: an ArrayList holding
+    one shared Letter reference per character.
+
+    Both hold the same text of CHARACTERS chars, written in style runs of 20 to 200 chars across
+    four styles. Retained heap is measured after a GC and reported per million chars. Then both
+    take EDITS random one-char inserts followed by as many one-char deletes.
+
+        java -cp target/classes com.example.learninglld.flyweightPattern.wordProcessor.DocumentBenchmark [characters]
+ */
+public class DocumentBenchmark {
+    private static final int DEFAULT_CHARACTERS = 4_000_000;
+    private static final int EDITS = 20_000;
+    private static final TextStyle[] STYLES = {
+            TextStyle.DEFAULT, TextStyle.of("Arial", 14), TextStyle.of("Times New Roman", 12), TextStyle.of("Courier", 10)
+    };
+
+    public static void main(String[] args) {
+        int characters = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CHARACTERS;
+        LetterFactory letterFactory = new LetterFactory();
+        System.out.printf("%,d characters%n", characters);
+
+        long baseline = usedHeap();
+        List<ICharacter> letters = new ArrayList<>();
+        fill(characters, (text, style) -> {
+            for(int i = 0; i < text.length(); i++) {
+                letters.add(letterFactory.getCharacter(text.charAt(i), style));
+            }
+        });
+        long letterBytes = usedHeap() - baseline;
+        report("ArrayList<ICharacter>", letterBytes, characters);
+
+        baseline = usedHeap();
+        Document document = new Document(letterFactory);
+        fill(characters, document::append);
+        long documentBytes = usedHeap() - baseline;
+        report("Document", documentBytes, characters);
+        System.out.printf("%-24s %,d chunks, %,d style runs%n", "", document.chunkCount(), document.getStyleRuns().size());
+
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for(int i = 0; i < EDITS; i++) {
+            letters.add(random.nextInt(letters.size() + 1), letterFactory.getCharacter('x'));
+        }
+        for(int i = 0; i < EDITS; i++) {
+            letters.remove(random.nextInt(letters.size()));
+        }
+        reportEdits("ArrayList<ICharacter>", System.nanoTime() - start);
+
+        random = new Random(42);
+        start = System.nanoTime();
+        for(int i = 0; i < EDITS; i++) {
+            document.insert(random.nextInt(document.length() + 1), "x");
+        }
+        for(int i = 0; i < EDITS; i++) {
+            document.delete(random.nextInt(document.length()), 1);
+        }
+        reportEdits("Document", System.nanoTime() - start);
+
+        // keep both alive until here so the heap figures above stay meaningful
+        System.out.printf("%nfinal lengths %,d and %,d, %s%n", letters.size(), document.length(), letterFactory.stats());
+    }
+
+    interface Sink {
+        void write(CharSequence text, TextStyle style);
+    }
+
+    // writes the same pseudo-random styled text to sink on every call
+    static void fill(int characters, Sink sink) {
+        Random random = new Random(7);
+        StringBuilder run = new StringBuilder(200);
+        int written = 0;
+        while(written < characters) {
+            int length = Math.min(characters - written, 20 + random.nextInt(181));
+            run.setLength(0);
+            for(int i = 0; i < length; i++) {
+                run.append((char) ('a' + random.nextInt(26)));
+            }
+            sink.write(run, STYLES[random.nextInt(STYLES.length)]);
+            written += length;
+        }
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static void report(String name, long bytes, int characters) {
+        System.out.printf("%-24s %,14d bytes retained  %,12.0f bytes per million chars  %5.2f bytes/char%n",
+                name, bytes, bytes * 1e6 / characters, (double) bytes / characters);
+    }
+
+    static void reportEdits(String name, long nanos) {
+        System.out.printf("%-24s %,10.0f ns per edit%n", name, (double) nanos / (2 * EDITS));
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.learninglld.flyweightPattern.wordProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+/*
+    Lays out a Document as paragraphs of wrapped lines and renders their Letter flyweights.
+
+    Paragraphs end at '\n' and are laid out independently, so a full layout spreads them over a
+    ForkJoinPool. Edits made through this class relayout only the paragraphs they touch: the
+    edited range is widened to whole paragraphs, split again at '\n', and just those paragraphs
+    are replaced. Every other paragraph keeps its layout, because glyph positions are stored
+    relative to the paragraph's top.
+
+    stats() reports how long each layout took and how many paragraphs it covered, so the latency
+    of a single edit can be watched on large documents.
+
+    Not thread-safe: edit and render from one thread at a time. The pool threads only read the
+    document while the calling thread waits for them.
+ */
+public final class DocumentLayout {
+    // leaf tasks take paragraphs until they hold about this many chars
+    private static final int SPLIT_CHARS = 8192;
+
+    private final Document document;
+    private final LetterFactory letterFactory;
+    private final int width;
+    private final ForkJoinPool pool;
+    private final List<ParagraphLayout> paragraphs = new ArrayList<>();
+
+    private long layoutCount;
+    private long totalLayoutNanos;
+    private long maxLayoutNanos;
+    private long lastLayoutNanos;
+    private long paragraphsLaidOut;
+    private int lastParagraphsLaidOut;
+
+    public DocumentLayout(Document document, LetterFactory letterFactory, int width) {
+        this(document, letterFactory, width, ForkJoinPool.commonPool());
+    }
+
+    public DocumentLayout(Document document, LetterFactory letterFactory, int width, ForkJoinPool pool) {
+        if(width <= 0) {
+            throw new IllegalArgumentException("width must be positive: " + width);
+        }
+        this.document = document;
+        this.letterFactory = letterFactory;
+        this.width = width;
+        this.pool = pool;
+        layoutAll();
+    }
+
+    // lays out the whole document again, e.g. after it was edited directly
+    public void layoutAll() {
+        long start = System.nanoTime();
+        List<ParagraphLayout> laidOut = layoutRange(0, document.length());
+        paragraphs.clear();
+        paragraphs.addAll(laidOut);
+        record(start, laidOut.size());
+    }
+
+    public void insert(int offset, CharSequence text, TextStyle style) {
+        document.insert(offset, text, style);
+        relayout(offset, 0, text.length());
+    }
+
+    public void insert(int offset, CharSequence text) {
+        document.insert(offset, text);
+        relayout(offset, 0, text.length());
+    }
+
+    public void delete(int offset, int count) {
+        document.delete(offset, count);
+        relayout(offset, count, 0);
+    }
+
+    public void setStyle(int offset, int count, TextStyle style) {
+        document.setStyle(offset, count, style);
+        relayout(offset, count, count);
+    }
+
+    // displays every glyph, paragraphs in parallel
+    public void render() {
+        render(0, Integer.MAX_VALUE);
+    }
+
+    // displays the paragraphs that overlap the band [top, bottom) of the page
+    public void render(int top, int bottom) {
+        int[] tops = new int[paragraphs.size()];
+        int y = 0;
+        int first = -1;
+        int last = -1;
+        for(int i = 0; i < paragraphs.size(); i++) {
+            tops[i] = y;
+            y += paragraphs.get(i).height;
+            if(y > top && tops[i] < bottom) {
+                if(first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        if(first >= 0) {
+            forEachParagraph(first, last + 1, i -> paragraphs.get(i).length, i -> paragraphs.get(i).render(tops[i]));
+        }
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public int getParagraphCount() {
+        return paragraphs.size();
+    }
+
+    public int getLineCount() {
+        int lines = 0;
+        for(ParagraphLayout paragraph : paragraphs) {
+            lines += paragraph.lineCount();
+        }
+        return lines;
+    }
+
+    public int getHeight() {
+        int height = 0;
+        for(ParagraphLayout paragraph : paragraphs) {
+            height += paragraph.height;
+        }
+        return height;
+    }
+
+    public LayoutStats stats() {
+        return new LayoutStats(layoutCount, totalLayoutNanos, maxLayoutNanos, lastLayoutNanos, paragraphsLaidOut, lastParagraphsLaidOut);
+    }
+
+    /*
+        The document changed at offset: removed chars went and inserted chars took their place.
+        Offsets of the paragraph list are still those from before the edit.
+     */
+    private void relayout(int offset, int removed, int inserted) {
+        long start = System.nanoTime();
+        int first = paragraphAt(offset);
+        int last = paragraphAt(offset + removed);
+        // a range reaching the end of the document lays out the empty paragraph after a final
+        // '\n' again, so it must replace that paragraph too
+        while(last + 1 < paragraphs.size() && paragraphs.get(last + 1).length == 0) {
+            last++;
+        }
+        int rangeStart = 0;
+        for(int i = 0; i < first; i++) {
+            rangeStart += paragraphs.get(i).length;
+        }
+        int oldEnd = rangeStart;
+        for(int i = first; i <= last; i++) {
+            oldEnd += paragraphs.get(i).length;
+        }
+        List<ParagraphLayout> laidOut = layoutRange(rangeStart, oldEnd - removed + inserted);
+        List<ParagraphLayout> replaced = paragraphs.subList(first, last + 1);
+        replaced.clear();
+        replaced.addAll(laidOut);
+        record(start, laidOut.size());
+    }
+
+    // index of the paragraph holding offset; the end of the document belongs to the last one
+    private int paragraphAt(int offset) {
+        int position = 0;
+        for(int i = 0; i < paragraphs.size(); i++) {
+            position += paragraphs.get(i).length;
+            if(offset < position) {
+                return i;
+            }
+        }
+        return paragraphs.size() - 1;
+    }
+
+    // splits [start, end) of the document, which begins at a paragraph start, into paragraphs and lays them out
+    private List<ParagraphLayout> layoutRange(int start, int end) {
+        String text = document.getText(start, end - start);
+        // paragraph starts relative to start
+        List<Integer> starts = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        int paragraphStart = 0;
+        for(int i = 0; i < text.length(); i++) {
+            if(text.charAt(i) == '\n') {
+                starts.add(paragraphStart);
+                lengths.add(i + 1 - paragraphStart);
+                paragraphStart = i + 1;
+            }
+        }
+        // the document always ends with a paragraph, even an empty one after a final '\n'
+        if(paragraphStart < text.length() || end == document.length()) {
+            starts.add(paragraphStart);
+            lengths.add(text.length() - paragraphStart);
+        }
+
+        ParagraphLayout[] laidOut = new ParagraphLayout[starts.size()];
+        forEachParagraph(0, laidOut.length, lengths::get, i -> {
+            int from = starts.get(i);
+            int length = lengths.get(i);
+            laidOut[i] = ParagraphLayout.layout(text.substring(from, from + length),
+                    document.getStyleRuns(start + from, length), letterFactory, width);
+        });
+        return List.of(laidOut);
+    }
+
+    // runs action for paragraphs [from, to) on the pool, in chunks of about SPLIT_CHARS chars
+    private void forEachParagraph(int from, int to, IntUnaryOperator length, IntConsumer action) {
+        int[] chars = new int[to - from + 1];
+        for(int i = from; i < to; i++) {
+            chars[i - from + 1] = chars[i - from] + length.applyAsInt(i);
+        }
+        if(chars[to - from] <= SPLIT_CHARS || to - from == 1) {
+            for(int i = from; i < to; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+        pool.invoke(new ParagraphTask(from, to, from, chars, action));
+    }
+
+    private static final class ParagraphTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int base;
+        // chars[i - base] is the number of chars in paragraphs [base, i)
+        private final int[] chars;
+        private final IntConsumer action;
+
+        ParagraphTask(int from, int to, int base, int[] chars, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.base = base;
+            this.chars = chars;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from == 1 || chars[to - base] - chars[from - base] <= SPLIT_CHARS) {
+                for(int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            // split where half of the chars are on each side
+            int half = (chars[from - base] + chars[to - base]) >>> 1;
+            int middle = from + 1;
+            while(middle < to - 1 && chars[middle - base] < half) {
+                middle++;
+            }
+            invokeAll(new ParagraphTask(from, middle, base, chars, action), new ParagraphTask(middle, to, base, chars, action));
+        }
+    }
+
+    private void record(long startNanos, int laidOut) {
+        long nanos = System.nanoTime() - startNanos;
+        layoutCount++;
+        totalLayoutNanos += nanos;
+        maxLayoutNanos = Math.max(maxLayoutNanos, nanos);
+        lastLayoutNanos = nanos;
+        paragraphsLaidOut += laidOut;
+        lastParagraphsLaidOut = laidOut;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.learninglld.flyweightPattern.wordProcessor;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+    Layout cost of a 100-page document: pages of about 3,500 chars, in paragraphs of 200 to
+    1,000 chars.
+        full layout   on a one-thread pool and on the common pool, to show the parallel speed-up
+                      (which needs more than one CPU)
+        typing        single-char inserts at random offsets, each relaying out one paragraph
+        new paragraph a '\n' inserted mid-paragraph, which splits it in two
+        render        every glyph of the document displayed
+    Per-edit latencies come from DocumentLayout.stats().
+
+        java -cp target/classes com.example.learninglld.flyweightPattern.wordProcessor.DocumentLayoutBenchmark [pages]
+ */
+public class DocumentLayoutBenchmark {
+    private static final int DEFAULT_PAGES = 100;
+    private static final int CHARS_PER_PAGE = 3_500;
+    private static final int WIDTH = 600;
+    private static final int EDITS = 5_000;
+    private static final TextStyle[] STYLES = {
+            TextStyle.DEFAULT, TextStyle.of("Arial", 14), TextStyle.of("Times New Roman", 12), TextStyle.of("Courier", 10)
+    };
+
+    public static void main(String[] args) {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PAGES;
+        LetterFactory letterFactory = new LetterFactory();
+        Document document = buildDocument(pages * CHARS_PER_PAGE, letterFactory);
+
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        for(int warmup = 0; warmup < 10; warmup++) {
+            new DocumentLayout(document, letterFactory, WIDTH, singleThread);
+            new DocumentLayout(document, letterFactory, WIDTH);
+        }
+        DocumentLayout layout = new DocumentLayout(document, letterFactory, WIDTH);
+        System.out.printf("%d pages, %,d chars, %,d paragraphs, %,d lines, %d CPUs%n", pages, document.length(),
+                layout.getParagraphCount(), layout.getLineCount(), Runtime.getRuntime().availableProcessors());
+
+        long sequential = fullLayout(document, letterFactory, singleThread);
+        long parallel = fullLayout(document, letterFactory, ForkJoinPool.commonPool());
+        System.out.printf("%-22s %,12.0f us%n", "full layout, 1 thread", sequential / 1e3);
+        System.out.printf("%-22s %,12.0f us  (%.1fx)%n", "full layout, parallel", parallel / 1e3, (double) sequential / parallel);
+        singleThread.shutdown();
+
+        Random random = new Random(11);
+        long[] latencies = new long[EDITS];
+        for(int i = 0; i < EDITS; i++) {
+            layout.insert(random.nextInt(layout.getDocument().length() + 1), "x");
+            latencies[i] = layout.stats().getLastLayoutNanos();
+        }
+        report("typing", latencies, layout.stats().getLastParagraphsLaidOut());
+
+        int splitParagraphs = 0;
+        for(int i = 0; i < EDITS; i++) {
+            layout.insert(random.nextInt(layout.getDocument().length() + 1), "\n");
+            latencies[i] = layout.stats().getLastLayoutNanos();
+            splitParagraphs = layout.stats().getLastParagraphsLaidOut();
+            // keep the paragraph count steady
+            layout.delete(random.nextInt(layout.getDocument().length()), 1);
+        }
+        report("new paragraph", latencies, splitParagraphs);
+
+        for(int warmup = 0; warmup < 10; warmup++) {
+            layout.render();
+        }
+        long start = System.nanoTime();
+        layout.render();
+        System.out.printf("%-22s %,12.0f us%n", "render", (System.nanoTime() - start) / 1e3);
+        System.out.println(layout.stats());
+    }
+
+    static Document buildDocument(int characters, LetterFactory letterFactory) {
+        Random random = new Random(5);
+        Document document = new Document(letterFactory);
+        StringBuilder paragraph = new StringBuilder(1_000);
+        while(document.length() < characters) {
+            paragraph.setLength(0);
+            int length = 200 + random.nextInt(801);
+            while(paragraph.length() < length) {
+                int word = 1 + random.nextInt(9);
+                for(int i = 0; i < word; i++) {
+                    paragraph.append((char) ('a' + random.nextInt(26)));
+                }
+                paragraph.append(' ');
+            }
+            paragraph.setCharAt(paragraph.length() - 1, '\n');
+            // a few differently styled runs per paragraph
+            int offset = 0;
+            while(offset < paragraph.length()) {
+                int run = Math.min(paragraph.length() - offset, 50 + random.nextInt(300));
+                document.append(paragraph.subSequence(offset, offset + run), STYLES[random.nextInt(STYLES.length)]);
+                offset += run;
+            }
+        }
+        return document;
+    }
+
+    static long fullLayout(Document document, LetterFactory letterFactory, ForkJoinPool pool) {
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            new DocumentLayout(document, letterFactory, WIDTH, pool);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    static void report(String name, long[] latencies, int paragraphs) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-22s %,12.1f us p50  %,8.1f us p99  %,8.1f us max  (%d paragraphs per edit)%n", name,
+                sorted[sorted.length / 2] / 1e3, sorted[sorted.length * 99 / 100] / 1e3, sorted[sorted.length - 1] / 1e3, paragraphs);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.learninglld.flyweightPattern.wordProcessor;
+
+public class LayoutStats {
+    private final long layoutCount;
+    private final long totalLayoutNanos;
+    private final long maxLayoutNanos;
+    private final long lastLayoutNanos;
+    private final long paragraphsLaidOut;
+    private final int lastParagraphsLaidOut;
+
+    public LayoutStats(long layoutCount, long totalLayoutNanos, long maxLayoutNanos, long lastLayoutNanos,
+                       long paragraphsLaidOut, int lastParagraphsLaidOut) {
+        this.layoutCount = layoutCount;
+        this.totalLayoutNanos = totalLayoutNanos;
+        this.maxLayoutNanos = maxLayoutNanos;
+        this.lastLayoutNanos = lastLayoutNanos;
+        this.paragraphsLaidOut = paragraphsLaidOut;
+        this.lastParagraphsLaidOut = lastParagraphsLaidOut;
+    }
+
+    // full layouts and per-edit relayouts
+    public long getLayoutCount() {
+        return layoutCount;
+    }
+
+    public long getTotalLayoutNanos() {
+        return totalLayoutNanos;
+    }
+
+    public long getMaxLayoutNanos() {
+        return maxLayoutNanos;
+    }
+
+    // time taken by the most recent layout, i.e. the latency of the last edit
+    public long getLastLayoutNanos() {
+        return lastLayoutNanos;
+    }
+
+    public double getAverageLayoutNanos() {
+        return layoutCount == 0 ? 0 : (double) totalLayoutNanos / layoutCount;
+    }
+
+    public long getParagraphsLaidOut() {
+        return paragraphsLaidOut;
+    }
+
+    public int getLastParagraphsLaidOut() {
+        return lastParagraphsLaidOut;
+    }
+
+    @Override
+    public String toString() {
+        return "layouts=" + layoutCount + ", averageNanos=" + String.format("%.0f", getAverageLayoutNanos())
+                + ", maxNanos=" + maxLayoutNanos + ", lastNanos=" + lastLayoutNanos
+                + ", paragraphsLaidOut=" + paragraphsLaidOut + ", lastParagraphsLaidOut=" + lastParagraphsLaidOut;
+    }
+}
@@ -1,9 +1,9 @@
 package com.example.learninglld.flyweightPattern.wordProcessor;
 
 public class Letter implements ICharacter {
-    private char character;
-    private String fontType;
-    private Integer fontSize;
+    private final char character;
+    private final String fontType;
+    private final Integer fontSize;
 
     public Letter(char character, String fontType, Integer fontSize) {
         this.character = character;
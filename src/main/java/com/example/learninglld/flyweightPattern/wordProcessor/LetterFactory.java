@@ -1,15 +1,34 @@
 package com.example.learninglld.flyweightPattern.wordProcessor;
 
-import java.util.HashMap;
-import java.util.Map;
+import com.example.learninglld.flyweightPattern.FlyweightRegistry;
+import com.example.learninglld.flyweightPattern.FlyweightStats;
+import com.example.learninglld.flyweightPattern.ReferenceStrength;
 
+// hands out one shared Letter per character and style; safe to share between threads
 public class LetterFactory {
-    private Map<Character, ICharacter> characterPool = new HashMap<>();
+    // object header, char, font reference and size reference
+    private static final long ESTIMATED_LETTER_BYTES = 24;
+
+    private final FlyweightRegistry<Long, ICharacter> characterPool;
+
+    public LetterFactory() {
+        this(ReferenceStrength.STRONG, 1 << 20);
+    }
+
+    public LetterFactory(ReferenceStrength strength, int maximumSize) {
+        characterPool = new FlyweightRegistry<>(strength, maximumSize, letter -> ESTIMATED_LETTER_BYTES);
+    }
 
     public ICharacter getCharacter(char character) {
-        if(!characterPool.containsKey(character)) {
-            characterPool.put(character, new Letter(character, "Arial", 12));
-        }
-        return characterPool.get(character);
+        return getCharacter(character, TextStyle.DEFAULT);
+    }
+
+    public ICharacter getCharacter(char character, TextStyle style) {
+        long key = ((long) style.getId() << 16) | character;
+        return characterPool.get(key, k -> new Letter(character, style.getFontType(), style.getFontSize()));
+    }
+
+    public FlyweightStats stats() {
+        return characterPool.stats();
     }
 }
@@ -0,0 +1,128 @@
+package com.example.learninglld.flyweightPattern.wordProcessor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    Line breaks and glyph positions of one paragraph. Positions are relative to the paragraph's
+    top-left corner, so a paragraph keeps its layout when edits elsewhere move it up or down.
+    Immutable once built, so finished layouts can be read from any thread.
+ */
+final class ParagraphLayout {
+    // chars of the document covered, including the trailing '\n' if there is one
+    final int length;
+    final ICharacter[] glyphs;
+    final int[] x;
+    // index of the first glyph of each line
+    final int[] lineStarts;
+    final int[] lineTops;
+    final int height;
+
+    private ParagraphLayout(int length, ICharacter[] glyphs, int[] x, int[] lineStarts, int[] lineTops, int height) {
+        this.length = length;
+        this.glyphs = glyphs;
+        this.x = x;
+        this.lineStarts = lineStarts;
+        this.lineTops = lineTops;
+        this.height = height;
+    }
+
+    int lineCount() {
+        return lineStarts.length;
+    }
+
+    /*
+        Greedy word wrap: a line is broken after the last space that still fits, or mid-word when
+        a single word is wider than the line. The paragraph's '\n' gets no glyph.
+        runs hold the styles of text in order, clipped to it. Their starts are absolute document
+        offsets, so only their lengths are used.
+     */
+    static ParagraphLayout layout(String text, List<Document.StyleRun> runs, LetterFactory letterFactory, int width) {
+        int glyphCount = text.endsWith("\n") ? text.length() - 1 : text.length();
+        ICharacter[] glyphs = new ICharacter[glyphCount];
+        int[] x = new int[glyphCount];
+        int[] advances = new int[glyphCount];
+        int[] sizes = new int[glyphCount];
+        int[] lineStarts = new int[8];
+        int[] lineTops = new int[8];
+        int lines = 0;
+
+        int run = 0;
+        int runEnd = runs.isEmpty() ? 0 : runs.get(0).getLength();
+        for(int i = 0; i < glyphCount; i++) {
+            while(i >= runEnd) {
+                run++;
+                runEnd += runs.get(run).getLength();
+            }
+            TextStyle style = runs.get(run).getStyle();
+            char character = text.charAt(i);
+            glyphs[i] = letterFactory.getCharacter(character, style);
+            advances[i] = advance(character, style.getFontSize());
+            sizes[i] = style.getFontSize();
+        }
+
+        int top = 0;
+        int lineStart = 0;
+        while(lineStart < glyphCount || lines == 0) {
+            // find where this line ends
+            int lineX = 0;
+            int breakAt = -1;
+            int end = lineStart;
+            while(end < glyphCount && (lineX + advances[end] <= width || end == lineStart)) {
+                lineX += advances[end];
+                if(text.charAt(end) == ' ') {
+                    breakAt = end + 1;
+                }
+                end++;
+            }
+            if(end < glyphCount && breakAt > lineStart) {
+                end = breakAt;
+            }
+            int lineHeight = 0;
+            int position = 0;
+            for(int i = lineStart; i < end; i++) {
+                x[i] = position;
+                position += advances[i];
+                lineHeight = Math.max(lineHeight, sizes[i]);
+            }
+            if(lines == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+                lineTops = Arrays.copyOf(lineTops, lines * 2);
+            }
+            lineStarts[lines] = lineStart;
+            lineTops[lines] = top;
+            lines++;
+            // an empty line still takes the height of the default font
+            top += lineHeight(lineHeight == 0 ? TextStyle.DEFAULT.getFontSize() : lineHeight);
+            lineStart = end;
+        }
+        return new ParagraphLayout(text.length(), glyphs, x, Arrays.copyOf(lineStarts, lines), Arrays.copyOf(lineTops, lines), top);
+    }
+
+    // displays every glyph, with the paragraph's top edge at top
+    void render(int top) {
+        for(int line = 0; line < lineStarts.length; line++) {
+            int end = line + 1 < lineStarts.length ? lineStarts[line + 1] : glyphs.length;
+            int y = top + lineTops[line];
+            for(int i = lineStarts[line]; i < end; i++) {
+                glyphs[i].display(x[i], y);
+            }
+        }
+    }
+
+    // proportional-font approximation: narrow, wide and average glyphs, scaled by the font size
+    static int advance(char character, int fontSize) {
+        switch (character) {
+            case 'i', 'l', 'j', 't', 'f', 'r', '.', ',', ';', ':', '!', '\'', '|', ' ':
+                return (fontSize * 3 + 5) / 10;
+            case 'm', 'w', 'M', 'W', '@':
+                return (fontSize * 9 + 5) / 10;
+            default:
+                return (fontSize * 6 + 5) / 10;
+        }
+    }
+
+    static int lineHeight(int fontSize) {
+        return (fontSize * 12 + 5) / 10;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.learninglld.flyweightPattern.wordProcessor;
+
+import com.example.learninglld.flyweightPattern.FlyweightRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Font and size shared by a run of text. Styles are interned, so each distinct style exists once
+    and can be compared with ==. The id is a small number that identifies the style in keys.
+ */
+public final class TextStyle {
+    private static final FlyweightRegistry<String, TextStyle> STYLES = new FlyweightRegistry<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    public static final TextStyle DEFAULT = of("Arial", 12);
+
+    private final String fontType;
+    private final int fontSize;
+    private final int id;
+
+    private TextStyle(String fontType, int fontSize) {
+        this.fontType = fontType;
+        this.fontSize = fontSize;
+        this.id = NEXT_ID.getAndIncrement();
+    }
+
+    public static TextStyle of(String fontType, int fontSize) {
+        return STYLES.get(fontType + ':' + fontSize, key -> new TextStyle(fontType, fontSize));
+    }
+
+    public String getFontType() {
+        return fontType;
+    }
+
+    public int getFontSize() {
+        return fontSize;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return fontType + " " + fontSize;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.learninglld.objectPoolPattern;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+// opens the physical connection behind a DBResource; tests can pass an in-memory stand-in
+@FunctionalInterface
+public interface DBConnectionFactory {
+    Connection createConnection() throws SQLException;
+
+    static DBConnectionFactory fromConfig(DBResourcePoolConfig config) {
+        return () -> DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword());
+    }
+}
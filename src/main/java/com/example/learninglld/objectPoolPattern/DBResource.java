@@ -1,14 +1,42 @@
 package com.example.learninglld.objectPoolPattern;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DBResource {
     Connection dbconnection;
-    public DBResource() {
+    // true while a caller holds the resource, so a double release is caught in O(1)
+    final AtomicBoolean inUse = new AtomicBoolean();
+    final long createdAtNanos;
+    volatile long lastReleasedAtNanos;
+    volatile long acquiredAtNanos;
+    // stack trace of the current holder, recorded only while leak detection is on
+    volatile Throwable acquiredAt;
+    volatile boolean leakReported;
+
+    // the connection is opened by the pool, so a failed open never produces a dead resource
+    DBResource(Connection dbconnection) {
+        this.dbconnection = dbconnection;
+        this.createdAtNanos = System.nanoTime();
+        this.lastReleasedAtNanos = createdAtNanos;
+    }
+
+    public Connection getConnection() {
+        return dbconnection;
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return !dbconnection.isClosed() && dbconnection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void close() {
         try {
-            dbconnection = DriverManager.getConnection("jdbc:mysql://localhost:3306/mydb", "username", "password");
+            dbconnection.close();
         } catch (SQLException e) {
             e.printStackTrace();
         }
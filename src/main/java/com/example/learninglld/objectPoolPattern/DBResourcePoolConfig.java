@@ -0,0 +1,177 @@
+package com.example.learninglld.objectPoolPattern;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/*
+    Pool settings, read from the db.pool.* keys of application.properties.
+    A JVM system property with the same key overrides the file.
+ */
+public class DBResourcePoolConfig {
+    private String url = "jdbc:mysql://localhost:3306/mydb";
+    private String username = "username";
+    private String password = "password";
+    private int initialPoolSize = 3;
+    private int minIdle = 0;
+    private int maxPoolSize = 5;
+    private long acquireTimeoutMillis = 30_000;
+    private long idleTimeoutMillis = 600_000;
+    private long maxLifetimeMillis = 1_800_000;
+    private int validationTimeoutSeconds = 5;
+    private long maintenanceIntervalMillis = 30_000;
+    private long leakDetectionThresholdMillis = 0;
+
+    public static DBResourcePoolConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = DBResourcePoolConfig.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if(in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        properties.putAll(System.getProperties());
+        return fromProperties(properties);
+    }
+
+    public static DBResourcePoolConfig fromProperties(Properties properties) {
+        DBResourcePoolConfig config = new DBResourcePoolConfig();
+        config.setUrl(properties.getProperty("db.pool.url", config.url));
+        config.setUsername(properties.getProperty("db.pool.username", config.username));
+        config.setPassword(properties.getProperty("db.pool.password", config.password));
+        config.setMinIdle(Integer.parseInt(properties.getProperty("db.pool.min-idle", String.valueOf(config.minIdle))));
+        config.setIdleTimeoutMillis(Long.parseLong(properties.getProperty("db.pool.idle-timeout-ms", String.valueOf(config.idleTimeoutMillis))));
+        config.setMaxLifetimeMillis(Long.parseLong(properties.getProperty("db.pool.max-lifetime-ms", String.valueOf(config.maxLifetimeMillis))));
+        config.setValidationTimeoutSeconds(Integer.parseInt(properties.getProperty("db.pool.validation-timeout-s", String.valueOf(config.validationTimeoutSeconds))));
+        config.setMaintenanceIntervalMillis(Long.parseLong(properties.getProperty("db.pool.maintenance-interval-ms", String.valueOf(config.maintenanceIntervalMillis))));
+        config.setLeakDetectionThresholdMillis(Long.parseLong(properties.getProperty("db.pool.leak-detection-threshold-ms", String.valueOf(config.leakDetectionThresholdMillis))));
+        config.setInitialPoolSize(Integer.parseInt(properties.getProperty("db.pool.initial-size", String.valueOf(config.initialPoolSize))));
+        config.setMaxPoolSize(Integer.parseInt(properties.getProperty("db.pool.max-size", String.valueOf(config.maxPoolSize))));
+        config.setAcquireTimeoutMillis(Long.parseLong(properties.getProperty("db.pool.acquire-timeout-ms", String.valueOf(config.acquireTimeoutMillis))));
+        return config;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public DBResourcePoolConfig setUrl(String url) {
+        this.url = url;
+        return this;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public DBResourcePoolConfig setUsername(String username) {
+        this.username = username;
+        return this;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public DBResourcePoolConfig setPassword(String password) {
+        this.password = password;
+        return this;
+    }
+
+    public int getInitialPoolSize() {
+        return initialPoolSize;
+    }
+
+    public DBResourcePoolConfig setInitialPoolSize(int initialPoolSize) {
+        this.initialPoolSize = initialPoolSize;
+        return this;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public DBResourcePoolConfig setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+        return this;
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public DBResourcePoolConfig setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        return this;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public DBResourcePoolConfig setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+        return this;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    // 0 keeps idle resources forever
+    public DBResourcePoolConfig setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    // 0 lets a resource live forever
+    public DBResourcePoolConfig setMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        return this;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public DBResourcePoolConfig setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        return this;
+    }
+
+    public long getMaintenanceIntervalMillis() {
+        return maintenanceIntervalMillis;
+    }
+
+    // 0 disables the background maintenance task
+    public DBResourcePoolConfig setMaintenanceIntervalMillis(long maintenanceIntervalMillis) {
+        this.maintenanceIntervalMillis = maintenanceIntervalMillis;
+        return this;
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    // 0 disables leak detection; otherwise every acquire records its stack trace
+    public DBResourcePoolConfig setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        return this;
+    }
+
+    void validate() {
+        if(maxPoolSize <= 0 || initialPoolSize < 0 || initialPoolSize > maxPoolSize || minIdle < 0 || minIdle > maxPoolSize) {
+            throw new IllegalArgumentException("Invalid pool sizes: initial=" + initialPoolSize + ", minIdle=" + minIdle + ", max=" + maxPoolSize);
+        }
+        if(acquireTimeoutMillis < 0 || idleTimeoutMillis < 0 || maxLifetimeMillis < 0 || maintenanceIntervalMillis < 0
+                || validationTimeoutSeconds < 0 || leakDetectionThresholdMillis < 0) {
+            throw new IllegalArgumentException("Pool timeouts must not be negative");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.learninglld.objectPoolPattern;
+
+/*
+    Callbacks from DBResourcePoolManager, used to export metrics and report leaks.
+    They run on the thread that acquired or released the resource, so keep them cheap.
+ */
+public interface DBResourcePoolListener {
+    DBResourcePoolListener NONE = new DBResourcePoolListener() { };
+
+    // waitNanos is measured from the call to getDBResource until the resource was handed over
+    default void onAcquire(long waitNanos) {
+    }
+
+    default void onRelease(long heldNanos) {
+    }
+
+    default void onTimeout() {
+    }
+
+    // acquiredAt carries the stack trace of the caller that took the resource
+    default void onLeak(DBResource resource, long heldNanos, Throwable acquiredAt) {
+    }
+}
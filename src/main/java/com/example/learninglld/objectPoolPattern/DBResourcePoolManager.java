@@ -3,46 +3,397 @@ package com.example.learninglld.objectPoolPattern;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class DBResourcePoolManager {
-    private List<DBResource> freeResources = new ArrayList<>();
-    private List<DBResource> inUseResources = new ArrayList<>();
-    private Integer INITIAL_POOL_SIZE = 3;
-    private Integer MAX_POOL_SIZE = 5;
-    private static DBResourcePoolManager instance;
+/*
+    Free resources sit in a lock-free deque, and callers that find it empty queue up in FIFO order
+    as CompletableFutures. Both acquire and release publish their change first and then call
+    dispatch(), which pairs free resources with the oldest waiters. dispatch() keeps going until it
+    finds no waiter queued, including after it had to put a resource back, so a caller that queued
+    while another thread briefly held the resource is still served. No lock is held.
+
+    Nothing on the acquire or release path enters a monitor. A virtual thread that has to wait
+    parks inside CompletableFuture.get and unmounts, so thousands of them can wait on a small pool
+    without pinning carrier threads. VirtualThreadPoolLoadTest measures this.
+
+    A background maintenance task validates idle resources, closes those idle past the idle
+    timeout or older than the max lifetime, and tops the pool back up to the minimum idle count.
+
+    Acquire waits, hold times, timeouts and leaks are reported to a DBResourcePoolListener.
+    With leak detection on, every acquire records its stack trace and a background scan reports
+    resources held longer than the threshold.
+ */
+public class DBResourcePoolManager implements AutoCloseable {
+    private final ConcurrentLinkedDeque<DBResource> freeResources = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final Set<DBResource> allResources = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalResources = new AtomicInteger();
+    private final DBResourcePoolConfig config;
+    private final DBConnectionFactory connectionFactory;
+    private final ScheduledExecutorService maintenance;
+    private final boolean leakDetection;
+    private volatile DBResourcePoolListener listener = DBResourcePoolListener.NONE;
+    private volatile SQLException lastCreateFailure;
+    private static final ReentrantLock INSTANCE_LOCK = new ReentrantLock();
+    private static volatile DBResourcePoolManager instance;
 
     private DBResourcePoolManager() {
-        for(int i = 0; i < INITIAL_POOL_SIZE; i++) {
-            freeResources.add(new DBResource());
+        this(DBResourcePoolConfig.load());
+    }
+
+    DBResourcePoolManager(DBResourcePoolConfig config) {
+        this(config, DBConnectionFactory.fromConfig(config));
+    }
+
+    DBResourcePoolManager(DBResourcePoolConfig config, DBConnectionFactory connectionFactory) {
+        config.validate();
+        this.config = config;
+        this.connectionFactory = connectionFactory;
+        this.leakDetection = config.getLeakDetectionThresholdMillis() > 0;
+        prewarm(Math.max(config.getInitialPoolSize(), config.getMinIdle()));
+        if(config.getMaintenanceIntervalMillis() > 0 || leakDetection) {
+            maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "db-pool-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        else {
+            maintenance = null;
+        }
+        if(config.getMaintenanceIntervalMillis() > 0) {
+            maintenance.scheduleWithFixedDelay(this::maintain, config.getMaintenanceIntervalMillis(),
+                    config.getMaintenanceIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        if(leakDetection) {
+            // scanning at half the threshold reports a leak at most 1.5x the threshold after the acquire
+            long period = Math.max(1, config.getLeakDetectionThresholdMillis() / 2);
+            maintenance.scheduleWithFixedDelay(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
         }
     }
 
+    /*
+        The first call opens connections, so it is guarded by a ReentrantLock rather than synchronized:
+        a virtual thread blocked in a monitor during that I/O would pin its carrier thread.
+        The field is volatile so no thread can see a half-constructed pool.
+     */
     public static DBResourcePoolManager getInstance() {
-        if(instance == null) {
-            synchronized (DBResourcePoolManager.class) {
-                if(instance == null) {
-                    instance = new DBResourcePoolManager();
+        DBResourcePoolManager pool = instance;
+        if(pool == null) {
+            INSTANCE_LOCK.lock();
+            try {
+                pool = instance;
+                if(pool == null) {
+                    pool = new DBResourcePoolManager();
+                    instance = pool;
                 }
+            } finally {
+                INSTANCE_LOCK.unlock();
             }
         }
-        return instance;
+        return pool;
+    }
+
+    // blocks for up to the configured acquire timeout
+    public DBResource getDBResource() throws InterruptedException {
+        return getDBResource(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
     }
 
-    public synchronized DBResource getDBResource() throws InterruptedException {
-        if(freeResources.isEmpty() && inUseResources.size() < MAX_POOL_SIZE) {
-            freeResources.add(new DBResource());
+    public DBResource getDBResource(long timeout, TimeUnit unit) throws InterruptedException {
+        CompletableFuture<DBResource> future = acquire();
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            if(future.cancel(false)) {
+                waiters.remove(future);
+                listener.onTimeout();
+                DBResourceTimeoutException timeoutException =
+                        new DBResourceTimeoutException("No DBResource became free within " + unit.toMillis(timeout) + " ms");
+                if(lastCreateFailure != null) {
+                    timeoutException.initCause(lastCreateFailure);
+                }
+                throw timeoutException;
+            }
+            // a resource was handed over just as the wait ran out
+            return future.join();
+        } catch (InterruptedException e) {
+            if(!future.cancel(false)) {
+                releaseDBResource(future.join());
+            }
+            waiters.remove(future);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
         }
-        else if(freeResources.isEmpty() && inUseResources.size() >= MAX_POOL_SIZE) {
-            System.out.println("Pool is full. Waiting for a resource to be released.");
-            return null;
+    }
+
+    /*
+        Completes with a resource as soon as one is free, or exceptionally with a TimeoutException
+        after the configured acquire timeout. Waiters are served in the order they arrived.
+     */
+    public CompletableFuture<DBResource> getDBResourceAsync() {
+        CompletableFuture<DBResource> future = acquire().orTimeout(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+        future.whenComplete((resource, failure) -> {
+            if(failure instanceof TimeoutException) {
+                // as in getDBResource: a dead waiter would hold back the fast path and count as waiting
+                waiters.remove(future);
+                listener.onTimeout();
+            }
+        });
+        return future;
+    }
+
+    public void releaseDBResource(DBResource resource) {
+        long now = System.nanoTime();
+        long heldNanos = now - resource.acquiredAtNanos;
+        if(!resource.inUse.compareAndSet(true, false)) {
+            throw new IllegalStateException("DBResource was not acquired from this pool or was released twice");
+        }
+        // nobody else can see the resource until it is back in the free deque
+        resource.acquiredAt = null;
+        if(isPastMaxLifetime(resource, now)) {
+            destroy(resource);
+        }
+        else {
+            resource.lastReleasedAtNanos = now;
+            freeResources.offerFirst(resource);
+        }
+        listener.onRelease(heldNanos);
+        dispatch();
+    }
+
+    // replaces the current listener; pass DBResourcePoolListener.NONE to stop reporting
+    public void setListener(DBResourcePoolListener listener) {
+        this.listener = listener == null ? DBResourcePoolListener.NONE : listener;
+    }
+
+    public int getMaxResources() {
+        return config.getMaxPoolSize();
+    }
+
+    public int getTotalResources() {
+        return totalResources.get();
+    }
+
+    public int getIdleResources() {
+        return freeResources.size();
+    }
+
+    public int getWaitingCallers() {
+        return waiters.size();
+    }
+
+    // resources currently held by callers; may briefly lag behind concurrent acquires and releases
+    public int getActiveResources() {
+        return Math.max(0, totalResources.get() - freeResources.size());
+    }
+
+    // stops the maintenance task and closes every idle resource
+    @Override
+    public void close() {
+        if(maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        DBResource resource;
+        while((resource = freeResources.pollFirst()) != null) {
+            destroy(resource);
+        }
+    }
+
+    // a queued caller, remembering when it started waiting and, for leak detection, where it came from
+    private static final class Waiter extends CompletableFuture<DBResource> {
+        final long startNanos;
+        final Throwable acquiredAt;
+
+        Waiter(long startNanos, Throwable acquiredAt) {
+            this.startNanos = startNanos;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+
+    private CompletableFuture<DBResource> acquire() {
+        long startNanos = System.nanoTime();
+        Throwable acquiredAt = leakDetection ? new Throwable("DBResource acquired here") : null;
+        // only take the fast path when nobody is queued, so newcomers cannot barge ahead of waiters
+        if(waiters.isEmpty()) {
+            DBResource resource = pollOrCreate();
+            if(resource != null) {
+                checkOut(resource, acquiredAt);
+                listener.onAcquire(resource.acquiredAtNanos - startNanos);
+                return CompletableFuture.completedFuture(resource);
+            }
+        }
+        Waiter waiter = new Waiter(startNanos, acquiredAt);
+        waiters.offer(waiter);
+        dispatch();
+        return waiter;
+    }
+
+    private void checkOut(DBResource resource, Throwable acquiredAt) {
+        resource.acquiredAtNanos = System.nanoTime();
+        resource.acquiredAt = acquiredAt;
+        resource.leakReported = false;
+    }
+
+    private DBResource pollOrCreate() {
+        long now = System.nanoTime();
+        DBResource resource;
+        while((resource = freeResources.pollFirst()) != null && isPastMaxLifetime(resource, now)) {
+            destroy(resource);
+        }
+        if(resource == null) {
+            resource = tryCreate();
+        }
+        if(resource != null) {
+            resource.inUse.set(true);
         }
-        DBResource resource = freeResources.remove(freeResources.size() - 1);
-        inUseResources.add(resource);
         return resource;
     }
 
-    public synchronized void releaseDBResource(DBResource resource) {
-        inUseResources.remove(resource);
-        freeResources.add(resource);
+    private DBResource tryCreate() {
+        while(true) {
+            int total = totalResources.get();
+            if(total >= config.getMaxPoolSize()) {
+                return null;
+            }
+            if(totalResources.compareAndSet(total, total + 1)) {
+                try {
+                    DBResource resource = new DBResource(connectionFactory.createConnection());
+                    allResources.add(resource);
+                    lastCreateFailure = null;
+                    return resource;
+                } catch (SQLException e) {
+                    // nothing was created, so give the slot back; maintenance or the next caller retries
+                    totalResources.decrementAndGet();
+                    lastCreateFailure = e;
+                    return null;
+                }
+            }
+        }
+    }
+
+    private void dispatch() {
+        while(!waiters.isEmpty()) {
+            DBResource resource = pollOrCreate();
+            if(resource == null) {
+                return;
+            }
+            Waiter waiter = waiters.poll();
+            if(waiter != null) {
+                // the holder's fields must be set before complete() hands the resource over
+                checkOut(resource, waiter.acquiredAt);
+            }
+            if(waiter == null || !waiter.complete(resource)) {
+                // the waiter timed out or was cancelled, or another thread served it; a caller that
+                // queued while this thread held the resource found nothing, so check the queue again
+                resource.acquiredAt = null;
+                resource.inUse.set(false);
+                freeResources.offerFirst(resource);
+            }
+            else {
+                listener.onAcquire(resource.acquiredAtNanos - waiter.startNanos);
+            }
+        }
+    }
+
+    private void destroy(DBResource resource) {
+        allResources.remove(resource);
+        totalResources.decrementAndGet();
+        resource.close();
+    }
+
+    // reports each checkout held past the threshold once, with the stack trace of its acquire
+    void detectLeaks() {
+        try {
+            long now = System.nanoTime();
+            long threshold = TimeUnit.MILLISECONDS.toNanos(config.getLeakDetectionThresholdMillis());
+            for(DBResource resource : allResources) {
+                Throwable acquiredAt = resource.acquiredAt;
+                long heldNanos = now - resource.acquiredAtNanos;
+                if(acquiredAt != null && !resource.leakReported && resource.inUse.get() && heldNanos >= threshold) {
+                    resource.leakReported = true;
+                    System.err.println("Possible DBResource leak: held for " + TimeUnit.NANOSECONDS.toMillis(heldNanos)
+                            + " ms without being released");
+                    acquiredAt.printStackTrace();
+                    listener.onLeak(resource, heldNanos, acquiredAt);
+                }
+            }
+        } catch (RuntimeException e) {
+            // keep the scheduled task alive
+            e.printStackTrace();
+        }
+    }
+
+    private boolean isPastMaxLifetime(DBResource resource, long now) {
+        long maxLifetime = TimeUnit.MILLISECONDS.toNanos(config.getMaxLifetimeMillis());
+        return maxLifetime > 0 && now - resource.createdAtNanos >= maxLifetime;
+    }
+
+    private boolean isIdleTooLong(DBResource resource, long now) {
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        return idleTimeout > 0 && now - resource.lastReleasedAtNanos >= idleTimeout;
+    }
+
+    /*
+        One maintenance pass. Each idle resource is claimed by removing it from the free deque,
+        so a caller can never receive a resource while it is being checked.
+     */
+    void maintain() {
+        try {
+            long now = System.nanoTime();
+            for(DBResource resource : new ArrayList<>(freeResources)) {
+                if(!freeResources.removeFirstOccurrence(resource)) {
+                    continue;
+                }
+                boolean evict = isPastMaxLifetime(resource, now)
+                        || (isIdleTooLong(resource, now) && freeResources.size() >= config.getMinIdle())
+                        || !resource.isValid(config.getValidationTimeoutSeconds());
+                if(evict) {
+                    destroy(resource);
+                }
+                else {
+                    freeResources.offerLast(resource);
+                }
+            }
+            prewarm(config.getMinIdle() - freeResources.size());
+            dispatch();
+        } catch (RuntimeException e) {
+            // keep the scheduled task alive
+            e.printStackTrace();
+        }
+    }
+
+    // opens up to count new resources in parallel, one virtual thread each, and adds them to the free deque
+    private void prewarm(int count) {
+        if(count <= 0) {
+            return;
+        }
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<CompletableFuture<DBResource>> created = new ArrayList<>();
+            for(int i = 0; i < count; i++) {
+                created.add(CompletableFuture.supplyAsync(this::tryCreate, executor));
+            }
+            for(CompletableFuture<DBResource> future : created) {
+                DBResource resource = future.join();
+                if(resource != null) {
+                    freeResources.offerLast(resource);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
     }
 }
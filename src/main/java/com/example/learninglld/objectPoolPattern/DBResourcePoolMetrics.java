@@ -0,0 +1,89 @@
+package com.example.learninglld.objectPoolPattern;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Exports a DBResourcePoolManager to Micrometer:
+        db.pool.connections{state=active|idle|pending}, db.pool.connections.total, db.pool.connections.max
+        db.pool.acquire   - time from asking for a resource until it was handed over
+        db.pool.usage     - time a caller held a resource
+        db.pool.timeouts  - acquires that gave up
+        db.pool.leaks     - resources held past the leak detection threshold
+    The timers publish histogram buckets, so percentiles can be computed across instances.
+ */
+public class DBResourcePoolMetrics implements MeterBinder, DBResourcePoolListener {
+    private final DBResourcePoolManager pool;
+    private volatile Timer acquireTimer;
+    private volatile Timer usageTimer;
+    private volatile Counter timeoutCounter;
+    private volatile Counter leakCounter;
+
+    private DBResourcePoolMetrics(DBResourcePoolManager pool) {
+        this.pool = pool;
+    }
+
+    // installs the binder as the pool's listener once it is fully built
+    public static DBResourcePoolMetrics create(DBResourcePoolManager pool) {
+        DBResourcePoolMetrics metrics = new DBResourcePoolMetrics(pool);
+        pool.setListener(metrics);
+        return metrics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.pool.connections", pool, DBResourcePoolManager::getActiveResources)
+                .tag("state", "active").description("Resources held by callers").register(registry);
+        Gauge.builder("db.pool.connections", pool, DBResourcePoolManager::getIdleResources)
+                .tag("state", "idle").description("Resources free in the pool").register(registry);
+        Gauge.builder("db.pool.connections", pool, DBResourcePoolManager::getWaitingCallers)
+                .tag("state", "pending").description("Callers waiting for a resource").register(registry);
+        Gauge.builder("db.pool.connections.total", pool, DBResourcePoolManager::getTotalResources)
+                .description("Open resources").register(registry);
+        Gauge.builder("db.pool.connections.max", pool, DBResourcePoolManager::getMaxResources)
+                .description("Maximum pool size").register(registry);
+        acquireTimer = Timer.builder("db.pool.acquire").description("Wait to acquire a resource")
+                .publishPercentileHistogram().register(registry);
+        usageTimer = Timer.builder("db.pool.usage").description("Time a resource was held")
+                .publishPercentileHistogram().register(registry);
+        timeoutCounter = Counter.builder("db.pool.timeouts").description("Acquires that timed out").register(registry);
+        leakCounter = Counter.builder("db.pool.leaks").description("Resources held past the leak threshold").register(registry);
+    }
+
+    @Override
+    public void onAcquire(long waitNanos) {
+        Timer timer = acquireTimer;
+        if(timer != null) {
+            timer.record(waitNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onRelease(long heldNanos) {
+        Timer timer = usageTimer;
+        if(timer != null) {
+            timer.record(heldNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onTimeout() {
+        Counter counter = timeoutCounter;
+        if(counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void onLeak(DBResource resource, long heldNanos, Throwable acquiredAt) {
+        Counter counter = leakCounter;
+        if(counter != null) {
+            counter.increment();
+        }
+    }
+}
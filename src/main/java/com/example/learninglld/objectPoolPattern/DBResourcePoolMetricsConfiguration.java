@@ -0,0 +1,20 @@
+package com.example.learninglld.objectPoolPattern;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+    Registers the pool metrics with Actuator, which binds every MeterBinder bean to its registry.
+    Off by default, since getInstance() opens connections to db.pool.url when the context starts.
+    Turn it on with db.pool.metrics-enabled=true; the meters are then listed under /actuator/metrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.pool.metrics-enabled", havingValue = "true")
+public class DBResourcePoolMetricsConfiguration {
+
+    @Bean
+    public DBResourcePoolMetrics dbResourcePoolMetrics() {
+        return DBResourcePoolMetrics.create(DBResourcePoolManager.getInstance());
+    }
+}
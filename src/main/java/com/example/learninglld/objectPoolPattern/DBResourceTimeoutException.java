@@ -0,0 +1,8 @@
+package com.example.learninglld.objectPoolPattern;
+
+// thrown when no DBResource became free within the acquire timeout
+public class DBResourceTimeoutException extends RuntimeException {
+    public DBResourceTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.learninglld.objectPoolPattern;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/*
+    Generic pool of reusable objects: connections, parser buffers, Sprites and so on. It is built
+    like a ConcurrentBag. Each object sits in a PooledObject whose state is NOT_IN_USE or IN_USE, and
+    a borrow wins an object by CASing that state. No lock is taken.
+
+    borrow() looks in three places, cheapest first:
+        1. the objects this thread released last (thread-local, no contention at all)
+        2. a shared lock-free queue of released objects
+        3. a scan of every object, which also steals objects cached by other threads
+    After that it creates a new object while below the maximum size, or queues up as a waiter.
+    A waiter is published before the final scan, and release checks for waiters after freeing its
+    object. dispatch() keeps pairing until it finds no waiter queued, including after it had to put
+    an object back, so a borrower that queued while another thread briefly held the object is
+    still served.
+
+    Virtual threads skip the thread-local cache. They are too many and too short-lived for it to pay off.
+ */
+public class ObjectPool<T> implements AutoCloseable {
+    private final Supplier<? extends T> factory;
+    private final Predicate<? super T> validator;
+    private final Consumer<? super T> reset;
+    private final Consumer<? super T> destroyer;
+    private final int maxSize;
+    private final long acquireTimeoutNanos;
+    private final int threadLocalCacheSize;
+
+    private final CopyOnWriteArrayList<PooledObject<T>> allObjects = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<PooledObject<T>> sharedQueue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<CompletableFuture<PooledObject<T>>> waiters = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ArrayDeque<PooledObject<T>>> localCache = ThreadLocal.withInitial(ArrayDeque::new);
+    private final AtomicInteger totalObjects = new AtomicInteger();
+    private volatile RuntimeException lastCreateFailure;
+    private volatile boolean closed;
+
+    ObjectPool(ObjectPoolBuilder<T> builder) {
+        this.factory = builder.factory;
+        this.validator = builder.validator;
+        this.reset = builder.reset;
+        this.destroyer = builder.destroyer;
+        this.maxSize = builder.maxSize;
+        this.acquireTimeoutNanos = builder.acquireTimeoutNanos;
+        this.threadLocalCacheSize = builder.threadLocalCacheSize;
+        for(int i = 0; i < builder.initialSize; i++) {
+            PooledObject<T> pooled = tryCreate();
+            if(pooled != null) {
+                pooled.state.set(PooledObject.NOT_IN_USE);
+                sharedQueue.offer(pooled);
+            }
+        }
+    }
+
+    public static <T> ObjectPoolBuilder<T> builder(Supplier<? extends T> factory) {
+        return new ObjectPoolBuilder<>(factory);
+    }
+
+    // blocks for up to the configured acquire timeout
+    public PooledObject<T> borrow() throws InterruptedException {
+        return borrow(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public PooledObject<T> borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while(true) {
+            if(closed) {
+                throw new IllegalStateException("ObjectPool is closed");
+            }
+            PooledObject<T> pooled = poll();
+            if(pooled == null) {
+                pooled = await(deadline);
+            }
+            if(validator.test(pooled.get())) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+    }
+
+    public void release(PooledObject<T> pooled) {
+        if(!pooled.state.compareAndSet(PooledObject.IN_USE, PooledObject.RETURNING)) {
+            throw new IllegalStateException("PooledObject was not borrowed from this pool or was released twice");
+        }
+        try {
+            reset.accept(pooled.get());
+        } catch (RuntimeException e) {
+            destroy(pooled);
+            throw e;
+        }
+        if(closed) {
+            destroy(pooled);
+            return;
+        }
+        pooled.state.set(PooledObject.NOT_IN_USE);
+        if(!waiters.isEmpty()) {
+            sharedQueue.offer(pooled);
+            dispatch();
+            return;
+        }
+        ArrayDeque<PooledObject<T>> cache = threadLocalCacheSize > 0 && !Thread.currentThread().isVirtual() ? localCache.get() : null;
+        if(cache != null && cache.size() < threadLocalCacheSize) {
+            cache.push(pooled);
+        }
+        else {
+            sharedQueue.offer(pooled);
+        }
+        // a borrower may have queued up after the check above; make sure it is served
+        if(!waiters.isEmpty()) {
+            dispatch();
+        }
+    }
+
+    public int getTotal() {
+        return totalObjects.get();
+    }
+
+    // objects not currently borrowed; a snapshot that may lag behind concurrent borrows
+    public int getIdle() {
+        int idle = 0;
+        for(PooledObject<T> pooled : allObjects) {
+            if(pooled.state.get() == PooledObject.NOT_IN_USE) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    public int getWaiting() {
+        return waiters.size();
+    }
+
+    // destroys every idle object; borrowed objects are destroyed when they are released
+    @Override
+    public void close() {
+        closed = true;
+        CompletableFuture<PooledObject<T>> waiter;
+        while((waiter = waiters.poll()) != null) {
+            waiter.completeExceptionally(new IllegalStateException("ObjectPool is closed"));
+        }
+        for(PooledObject<T> pooled : allObjects) {
+            if(pooled.state.compareAndSet(PooledObject.NOT_IN_USE, PooledObject.IN_USE)) {
+                destroy(pooled);
+            }
+        }
+        sharedQueue.clear();
+    }
+
+    // claims a free object without waiting, or returns null
+    private PooledObject<T> poll() {
+        if(threadLocalCacheSize > 0 && !Thread.currentThread().isVirtual()) {
+            ArrayDeque<PooledObject<T>> cache = localCache.get();
+            PooledObject<T> pooled;
+            while((pooled = cache.poll()) != null) {
+                if(pooled.state.compareAndSet(PooledObject.NOT_IN_USE, PooledObject.IN_USE)) {
+                    return pooled;
+                }
+                // stolen by another thread, or destroyed, since it was cached here
+            }
+        }
+        if(!waiters.isEmpty()) {
+            // do not barge ahead of threads that are already waiting
+            return null;
+        }
+        return pollShared();
+    }
+
+    private PooledObject<T> pollShared() {
+        PooledObject<T> pooled;
+        while((pooled = sharedQueue.poll()) != null) {
+            if(pooled.state.compareAndSet(PooledObject.NOT_IN_USE, PooledObject.IN_USE)) {
+                return pooled;
+            }
+        }
+        for(PooledObject<T> candidate : allObjects) {
+            if(candidate.state.get() == PooledObject.NOT_IN_USE
+                    && candidate.state.compareAndSet(PooledObject.NOT_IN_USE, PooledObject.IN_USE)) {
+                return candidate;
+            }
+        }
+        return tryCreate();
+    }
+
+    private PooledObject<T> await(long deadline) throws InterruptedException {
+        CompletableFuture<PooledObject<T>> waiter = new CompletableFuture<>();
+        waiters.offer(waiter);
+        dispatch();
+        try {
+            return waiter.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if(waiter.cancel(false)) {
+                waiters.remove(waiter);
+                ObjectPoolTimeoutException timeoutException = new ObjectPoolTimeoutException("No pooled object became free in time");
+                if(lastCreateFailure != null) {
+                    timeoutException.initCause(lastCreateFailure);
+                }
+                throw timeoutException;
+            }
+            // an object was handed over just as the wait ran out
+            return waiter.join();
+        } catch (InterruptedException e) {
+            if(!waiter.cancel(false)) {
+                release(waiter.join());
+            }
+            waiters.remove(waiter);
+            throw e;
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // pairs free objects with waiters, oldest waiter first
+    private void dispatch() {
+        while(!waiters.isEmpty()) {
+            PooledObject<T> pooled = pollShared();
+            if(pooled == null) {
+                return;
+            }
+            CompletableFuture<PooledObject<T>> waiter = waiters.poll();
+            if(waiter == null || !waiter.complete(pooled)) {
+                // the waiter timed out or was cancelled, or another thread served it; a borrower that
+                // queued while this thread held the object found nothing, so check the queue again
+                pooled.state.set(PooledObject.NOT_IN_USE);
+                sharedQueue.offer(pooled);
+            }
+        }
+    }
+
+    // creates a new object in the IN_USE state, or returns null at the maximum size or when the factory fails
+    private PooledObject<T> tryCreate() {
+        while(true) {
+            int total = totalObjects.get();
+            if(total >= maxSize || closed) {
+                return null;
+            }
+            if(totalObjects.compareAndSet(total, total + 1)) {
+                try {
+                    PooledObject<T> pooled = new PooledObject<>(this, factory.get());
+                    allObjects.add(pooled);
+                    lastCreateFailure = null;
+                    return pooled;
+                } catch (RuntimeException e) {
+                    totalObjects.decrementAndGet();
+                    lastCreateFailure = e;
+                    return null;
+                }
+            }
+        }
+    }
+
+    private void destroy(PooledObject<T> pooled) {
+        pooled.state.set(PooledObject.REMOVED);
+        allObjects.remove(pooled);
+        totalObjects.decrementAndGet();
+        try {
+            destroyer.accept(pooled.get());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        // the freed slot may let a waiter create a replacement
+        if(!waiters.isEmpty()) {
+            dispatch();
+        }
+    }
+}
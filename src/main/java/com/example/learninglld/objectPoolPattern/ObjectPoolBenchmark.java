@@ -0,0 +1,120 @@
+package com.example.learninglld.objectPoolPattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Borrow/release throughput of ObjectPool against the synchronized-list pool that
+    DBResourcePoolManager used to be, at 1 to 64 threads. Both pools hold POOL_SIZE parser buffers.
+    Each borrow appends a short record to its buffer, and the buffer is cleared on release.
+
+        java -cp target/classes com.example.learninglld.objectPoolPattern.ObjectPoolBenchmark
+ */
+public class ObjectPoolBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int POOL_SIZE = 16;
+    private static final long RUN_MILLIS = 1_000;
+
+    interface Pool {
+        StringBuilder borrow() throws InterruptedException;
+
+        void release(StringBuilder buffer);
+    }
+
+    // free and in-use lists guarded by the pool monitor, as in the original DBResourcePoolManager
+    static final class SynchronizedListPool implements Pool {
+        private final List<StringBuilder> freeResources = new ArrayList<>();
+        private final List<StringBuilder> inUseResources = new ArrayList<>();
+
+        SynchronizedListPool(int size) {
+            for(int i = 0; i < size; i++) {
+                freeResources.add(new StringBuilder(1024));
+            }
+        }
+
+        @Override
+        public synchronized StringBuilder borrow() throws InterruptedException {
+            while(freeResources.isEmpty()) {
+                wait();
+            }
+            StringBuilder buffer = freeResources.remove(freeResources.size() - 1);
+            inUseResources.add(buffer);
+            return buffer;
+        }
+
+        @Override
+        public synchronized void release(StringBuilder buffer) {
+            buffer.setLength(0);
+            inUseResources.remove(buffer);
+            freeResources.add(buffer);
+            notify();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for(int threads : THREAD_COUNTS) {
+            System.out.println("---- " + threads + " threads ----");
+            run("synchronized list pool", threads, new SynchronizedListPool(POOL_SIZE));
+
+            ObjectPool<StringBuilder> objectPool = ObjectPool.builder(() -> new StringBuilder(1024))
+                    .setReset(buffer -> buffer.setLength(0))
+                    .setInitialSize(POOL_SIZE)
+                    .setMaxSize(POOL_SIZE)
+                    .build();
+            run("ObjectPool", threads, new Pool() {
+                // the benchmark threads borrow one buffer at a time, so one handle per thread is enough
+                private final ThreadLocal<PooledObject<StringBuilder>> borrowed = new ThreadLocal<>();
+
+                @Override
+                public StringBuilder borrow() throws InterruptedException {
+                    PooledObject<StringBuilder> pooled = objectPool.borrow();
+                    borrowed.set(pooled);
+                    return pooled.get();
+                }
+
+                @Override
+                public void release(StringBuilder buffer) {
+                    borrowed.get().close();
+                }
+            });
+            objectPool.close();
+        }
+    }
+
+    static void run(String name, int threads, Pool pool) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(threads);
+        long[] deadline = new long[1];
+        for(int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long done = 0;
+                    while(System.nanoTime() < deadline[0]) {
+                        // check the clock only every 256 operations
+                        for(int i = 0; i < 256; i++) {
+                            StringBuilder buffer = pool.borrow();
+                            buffer.append("robot,").append(id).append(',').append(i);
+                            pool.release(buffer);
+                        }
+                        done += 256;
+                    }
+                    ops.add(done);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+            worker.start();
+        }
+        deadline[0] = System.nanoTime() + RUN_MILLIS * 1_000_000;
+        start.countDown();
+        finished.await();
+        System.out.printf("%-24s %,14d ops/s%n", name, ops.sum() * 1000 / RUN_MILLIS);
+    }
+}
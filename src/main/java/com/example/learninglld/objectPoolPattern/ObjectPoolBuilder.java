@@ -0,0 +1,70 @@
+package com.example.learninglld.objectPoolPattern;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public class ObjectPoolBuilder<T> {
+    final Supplier<? extends T> factory;
+    Predicate<? super T> validator = object -> true;
+    Consumer<? super T> reset = object -> { };
+    Consumer<? super T> destroyer = object -> { };
+    int initialSize = 0;
+    int maxSize = -1;
+    long acquireTimeoutNanos = Duration.ofSeconds(30).toNanos();
+    int threadLocalCacheSize = 16;
+
+    ObjectPoolBuilder(Supplier<? extends T> factory) {
+        this.factory = factory;
+    }
+
+    // checked on every borrow; an object that fails is destroyed and another one is tried
+    public ObjectPoolBuilder<T> setValidator(Predicate<? super T> validator) {
+        this.validator = validator;
+        return this;
+    }
+
+    // run on the releasing thread before the object becomes available again, e.g. to clear a buffer
+    public ObjectPoolBuilder<T> setReset(Consumer<? super T> reset) {
+        this.reset = reset;
+        return this;
+    }
+
+    // run when an object fails validation or the pool is closed
+    public ObjectPoolBuilder<T> setDestroyer(Consumer<? super T> destroyer) {
+        this.destroyer = destroyer;
+        return this;
+    }
+
+    public ObjectPoolBuilder<T> setInitialSize(int initialSize) {
+        this.initialSize = initialSize;
+        return this;
+    }
+
+    public ObjectPoolBuilder<T> setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public ObjectPoolBuilder<T> setAcquireTimeout(Duration timeout) {
+        this.acquireTimeoutNanos = timeout.toNanos();
+        return this;
+    }
+
+    // how many recently released objects each platform thread keeps for itself; 0 turns the cache off
+    public ObjectPoolBuilder<T> setThreadLocalCacheSize(int threadLocalCacheSize) {
+        this.threadLocalCacheSize = threadLocalCacheSize;
+        return this;
+    }
+
+    public ObjectPool<T> build() {
+        if(maxSize <= 0 || initialSize < 0 || initialSize > maxSize) {
+            throw new IllegalStateException("Invalid pool sizes: initial=" + initialSize + ", max=" + maxSize);
+        }
+        if(acquireTimeoutNanos < 0 || threadLocalCacheSize < 0) {
+            throw new IllegalStateException("acquire timeout and thread-local cache size must not be negative");
+        }
+        return new ObjectPool<>(this);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.learninglld.objectPoolPattern;
+
+// thrown when no pooled object became free within the acquire timeout
+public class ObjectPoolTimeoutException extends RuntimeException {
+    public ObjectPoolTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.learninglld.objectPoolPattern;
+
+import com.example.learninglld.flyweightPattern.withoutFlyweight.Sprites;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ObjectPoolUsage {
+    public static void useObjectPool() throws InterruptedException {
+        // parser buffers: large scratch arrays that are cleared on release instead of being reallocated
+        ObjectPool<StringBuilder> parserBuffers = ObjectPool.builder(() -> new StringBuilder(64 * 1024))
+                .setReset(buffer -> buffer.setLength(0))
+                .setValidator(buffer -> buffer.capacity() <= 1024 * 1024)
+                .setMaxSize(Runtime.getRuntime().availableProcessors() * 2)
+                .build();
+
+        List<String> fields = new ArrayList<>();
+        try (PooledObject<StringBuilder> buffer = parserBuffers.borrow()) {
+            StringBuilder field = buffer.get();
+            for(char c : "HUMANOID,10,20".toCharArray()) {
+                if(c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                }
+                else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+        }
+        System.out.println("Parsed fields: " + fields);
+
+        // sprites: bitmaps that are expensive to load, shared by whoever is rendering at the moment
+        ObjectPool<Sprites> sprites = ObjectPool.builder(Sprites::new)
+                .setInitialSize(2)
+                .setMaxSize(8)
+                .build();
+        try (PooledObject<Sprites> sprite = sprites.borrow()) {
+            System.out.println("Rendering with " + sprite.get() + ", " + sprites.getIdle() + " sprites idle");
+        }
+
+        parserBuffers.close();
+        sprites.close();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.learninglld.objectPoolPattern;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Handle for one object owned by an ObjectPool. Borrowers use get() and give the object back by
+    closing the handle, which fits try-with-resources. The handle itself is reused, so nothing is
+    allocated per borrow, and a handle must not be used after it was closed.
+ */
+public final class PooledObject<T> implements AutoCloseable {
+    static final int NOT_IN_USE = 0;
+    static final int IN_USE = 1;
+    static final int RETURNING = 2;
+    static final int REMOVED = -1;
+
+    private final ObjectPool<T> pool;
+    private final T object;
+    final AtomicInteger state = new AtomicInteger(IN_USE);
+
+    PooledObject(ObjectPool<T> pool, T object) {
+        this.pool = pool;
+        this.object = object;
+    }
+
+    public T get() {
+        return object;
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.learninglld.objectPoolPattern;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Starts thousands of virtual threads that each borrow a resource, hold it for a simulated query
+    and give it back. The run is repeated for DBResourcePoolManager and for the pool as it used to
+    be, with synchronized methods and Object.wait(). For each run it prints the throughput and the
+    number of JFR jdk.VirtualThreadPinned events.
+
+    A virtual thread that blocks inside a monitor keeps its carrier thread. Once every carrier is
+    pinned by a waiter, the threads holding resources cannot be scheduled to release them, and the
+    synchronized pool stalls. Each run therefore has a deadline. The lock-free pool runs first,
+    because threads stuck in the synchronized pool never finish.
+
+    Connections are in-memory stand-ins that take CONNECT_MILLIS to open. Run with
+        java -cp target/classes com.example.learninglld.objectPoolPattern.VirtualThreadPoolLoadTest [threads] [poolSize] [queryMillis]
+    and add -Djdk.tracePinnedThreads=short to also print where threads got pinned.
+ */
+public class VirtualThreadPoolLoadTest {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final long CONNECT_MILLIS = 5;
+    private static final long DEADLINE_SECONDS = 30;
+
+    interface Pool {
+        DBResource acquire() throws InterruptedException;
+
+        void release(DBResource resource);
+    }
+
+    // the pool before the rewrite: every operation holds the pool monitor, and connections are opened inside it
+    static final class SynchronizedPool implements Pool {
+        private final List<DBResource> freeResources = new ArrayList<>();
+        private final int maxPoolSize;
+        private int totalResources;
+
+        SynchronizedPool(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        @Override
+        public synchronized DBResource acquire() throws InterruptedException {
+            while(freeResources.isEmpty()) {
+                if(totalResources < maxPoolSize) {
+                    totalResources++;
+                    return new DBResource(openConnection());
+                }
+                wait();
+            }
+            return freeResources.remove(freeResources.size() - 1);
+        }
+
+        @Override
+        public synchronized void release(DBResource resource) {
+            freeResources.add(resource);
+            notify();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        long queryMillis = args.length > 2 ? Long.parseLong(args[2]) : 2;
+        System.out.printf("%,d virtual threads, pool of %d, %d ms per query, %d carrier threads%n",
+                threads, poolSize, queryMillis, Runtime.getRuntime().availableProcessors());
+
+        DBResourcePoolConfig config = new DBResourcePoolConfig()
+                .setInitialPoolSize(0)
+                .setMaxPoolSize(poolSize)
+                .setMaintenanceIntervalMillis(0)
+                .setAcquireTimeoutMillis(TimeUnit.SECONDS.toMillis(DEADLINE_SECONDS));
+        DBResourcePoolManager manager = new DBResourcePoolManager(config, VirtualThreadPoolLoadTest::openConnection);
+        Pool managerPool = new Pool() {
+            @Override
+            public DBResource acquire() throws InterruptedException {
+                return manager.getDBResource();
+            }
+
+            @Override
+            public void release(DBResource resource) {
+                manager.releaseDBResource(resource);
+            }
+        };
+        // one unrecorded pass so the JIT has compiled the acquire path; the synchronized pool would stall here
+        drive(managerPool, threads, queryMillis, new AtomicLong());
+        run("DBResourcePoolManager", managerPool, threads, queryMillis);
+        manager.close();
+
+        run("synchronized pool", new SynchronizedPool(poolSize), threads, queryMillis);
+        // threads stuck in the synchronized pool would keep the JVM alive
+        System.exit(0);
+    }
+
+    static void run(String name, Pool pool, int threads, long queryMillis) throws InterruptedException, IOException {
+        AtomicLong completed = new AtomicLong();
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO);
+            recording.start();
+
+            long start = System.nanoTime();
+            boolean finished = drive(pool, threads, queryMillis, completed);
+            long nanos = System.nanoTime() - start;
+            recording.stop();
+
+            System.out.printf("%-22s %,7d/%,d done in %,7d ms  %,10.0f acquires/s  %,6d pinned events%s%n",
+                    name, completed.get(), threads, TimeUnit.NANOSECONDS.toMillis(nanos),
+                    completed.get() * 1e9 / nanos, countPinnedEvents(recording),
+                    finished ? "" : "  STALLED: carriers pinned by waiting threads");
+        }
+    }
+
+    // starts one virtual thread per borrow and waits up to the deadline for all of them to finish
+    static boolean drive(Pool pool, int threads, long queryMillis, AtomicLong completed) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(threads);
+        for(int i = 0; i < threads; i++) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    DBResource resource = pool.acquire();
+                    try {
+                        Thread.sleep(queryMillis);
+                    } finally {
+                        pool.release(resource);
+                    }
+                    completed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        return done.await(DEADLINE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static long countPinnedEvents(Recording recording) throws IOException {
+        Path file = Files.createTempFile("pool-load-test", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(PINNED_EVENT))
+                    .count();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // in-memory stand-in for a JDBC connection that takes CONNECT_MILLIS to open
+    static Connection openConnection() {
+        try {
+            Thread.sleep(CONNECT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean[] closed = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, methodArgs) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed[0] = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed[0];
+                    case "isValid" -> !closed[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == methodArgs[0];
+                    case "toString" -> "in-memory connection";
+                    default -> null;
+                });
+    }
+}
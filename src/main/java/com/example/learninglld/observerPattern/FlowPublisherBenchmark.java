@@ -0,0 +1,145 @@
+package com.example.learninglld.observerPattern;
+
+import com.example.learninglld.observerPattern.observable.Observable;
+import com.example.learninglld.observerPattern.observable.ObservablePublisher;
+import com.example.learninglld.observerPattern.observable.OverflowPolicy;
+import com.example.learninglld.observerPattern.observer.Observer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+
+/*
+    EVENTS values published as fast as one thread can through an ObservablePublisher, to one
+    subscriber that:
+        unbounded    requests Long.MAX_VALUE, with a buffer large enough to hold every value
+        batches      requests BATCH values at a time, from a buffer of BUFFER with DROP_OLDEST
+        one by one   requests 1 value at a time, from a buffer of BUFFER with COALESCE
+    Reports the producer's rate, the rate at which values reach the subscriber, how many were
+    dropped or coalesced, and the latency from setValue() to onNext().
+
+        java -cp target/classes com.example.learninglld.observerPattern.FlowPublisherBenchmark
+ */
+public class FlowPublisherBenchmark {
+    private static final int EVENTS = 1_000_000;
+    private static final int BUFFER = 1024;
+    private static final int BATCH = 256;
+
+    // an Observable that notifies on every change, like a price ticker
+    static class TickerObservable implements Observable {
+        private final List<Observer> observers = new CopyOnWriteArrayList<>();
+        private int value;
+
+        @Override
+        public void addObserver(Observer observer) {
+            observers.add(observer);
+        }
+
+        @Override
+        public void removeObserver(Observer observer) {
+            observers.remove(observer);
+        }
+
+        @Override
+        public void notifyObservers() {
+            for(Observer observer : observers) {
+                observer.update(value);
+            }
+        }
+
+        @Override
+        public void setValue(int value) {
+            this.value = value;
+            notifyObservers();
+        }
+
+        @Override
+        public Integer getValue() {
+            return value;
+        }
+    }
+
+    static class MeasuringSubscriber implements Flow.Subscriber<Integer> {
+        private final long[] published;
+        private final long batch;
+        final long[] latencies = new long[EVENTS];
+        int received;
+        final CountDownLatch completed = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private long outstanding;
+
+        MeasuringSubscriber(long[] published, long batch) {
+            this.published = published;
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = batch;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(Integer value) {
+            latencies[received++] = System.nanoTime() - published[value];
+            if(batch != Long.MAX_VALUE && --outstanding == 0) {
+                outstanding = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            throwable.printStackTrace();
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for(int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            run(print, "unbounded", EVENTS, OverflowPolicy.DROP_NEWEST, Long.MAX_VALUE);
+            run(print, "batches", BUFFER, OverflowPolicy.DROP_OLDEST, BATCH);
+            run(print, "one by one", BUFFER, OverflowPolicy.COALESCE, 1);
+        }
+    }
+
+    static void run(boolean print, String name, int bufferSize, OverflowPolicy policy, long batch) throws InterruptedException {
+        TickerObservable ticker = new TickerObservable();
+        ObservablePublisher publisher = ObservablePublisher.builder(ticker)
+                .setBufferSize(bufferSize)
+                .setOverflowPolicy(policy)
+                .build();
+        long[] published = new long[EVENTS];
+        MeasuringSubscriber subscriber = new MeasuringSubscriber(published, batch);
+        publisher.subscribe(subscriber);
+
+        long start = System.nanoTime();
+        for(int value = 0; value < EVENTS; value++) {
+            published[value] = System.nanoTime();
+            ticker.setValue(value);
+        }
+        long producerDone = System.nanoTime();
+        publisher.close();
+        subscriber.completed.await();
+        long consumerDone = System.nanoTime();
+
+        if(print) {
+            long[] sorted = Arrays.copyOf(subscriber.latencies, subscriber.received);
+            Arrays.sort(sorted);
+            System.out.printf("%-11s %,11.0f events/s published  %,11.0f events/s received  |  received %,9d  dropped %,9d"
+                            + "  coalesced %,9d  |  latency p50 %,9d ns  p99 %,11d ns%n",
+                    name, EVENTS * 1e9 / (producerDone - start), subscriber.received * 1e9 / (consumerDone - start),
+                    subscriber.received, publisher.getDroppedCount(), publisher.getCoalescedCount(),
+                    sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)]);
+        }
+    }
+}
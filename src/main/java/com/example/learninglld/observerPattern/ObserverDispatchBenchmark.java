@@ -0,0 +1,136 @@
+package com.example.learninglld.observerPattern;
+
+import com.example.learninglld.observerPattern.observable.ObserverDispatcher;
+import com.example.learninglld.observerPattern.observable.OverflowPolicy;
+import com.example.learninglld.observerPattern.observer.Observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    OBSERVERS observers notified of PUBLISHES increasing values. SLOW_OBSERVERS of them block for
+    SLOW_UPDATE_NANOS in every update(), as an observer doing I/O would; the dispatcher runs
+    those on an executor of their own, so they can't hold up the shared pool:
+        synchronous   every update() called on the publishing thread, as IphoneObservable does
+        DROP_NEWEST   ObserverDispatcher that drops notifications for full queues
+        COALESCE      ObserverDispatcher that replaces the newest queued notification
+    Reports how fast the publisher can go, how fast notifications are delivered, and how many
+    were dropped or coalesced. Every observer checks it sees the values in increasing order and
+    that its last value is the last one published (for COALESCE, which never loses it).
+
+        java -cp target/classes com.example.learninglld.observerPattern.ObserverDispatchBenchmark
+ */
+public class ObserverDispatchBenchmark {
+    private static final int OBSERVERS = 10_000;
+    private static final int SLOW_OBSERVERS = 10;
+    private static final long SLOW_UPDATE_NANOS = 200_000;
+    private static final int PUBLISHES = 1_000;
+
+    static class CheckingObserver implements Observer {
+        final boolean slow;
+        volatile int last = -1;
+        int outOfOrder;
+
+        CheckingObserver(boolean slow) {
+            this.slow = slow;
+        }
+
+        @Override
+        public void update() {
+        }
+
+        @Override
+        public void update(int value) {
+            if(value <= last) {
+                outOfOrder++;
+            }
+            last = value;
+            if(slow) {
+                LockSupport.parkNanos(SLOW_UPDATE_NANOS);
+            }
+        }
+    }
+
+    interface Publisher {
+        void publish(int value);
+    }
+
+    public static void main(String[] args) {
+        for(int round = 0; round < 2; round++) {
+            boolean print = round == 1;
+            synchronous(print);
+            dispatched(print, OverflowPolicy.DROP_NEWEST);
+            dispatched(print, OverflowPolicy.COALESCE);
+        }
+    }
+
+    static void synchronous(boolean print) {
+        List<CheckingObserver> observers = observers();
+        // what IphoneObservable.notifyObservers() does without a dispatcher
+        Publisher publisher = value -> {
+            for(CheckingObserver observer : observers) {
+                observer.update(value);
+            }
+        };
+        run(print, "synchronous", observers, publisher, () -> { }, null);
+    }
+
+    static void dispatched(boolean print, OverflowPolicy policy) {
+        ObserverDispatcher dispatcher = ObserverDispatcher.builder()
+                .setQueueCapacity(16)
+                .setOverflowPolicy(policy)
+                .build();
+        ExecutorService slowPool = Executors.newFixedThreadPool(SLOW_OBSERVERS);
+        List<CheckingObserver> observers = observers();
+        for(CheckingObserver observer : observers) {
+            if(observer.slow) {
+                dispatcher.addObserver(observer, slowPool);
+            }
+            else {
+                dispatcher.addObserver(observer);
+            }
+        }
+        run(print, policy.name(), observers, dispatcher::publish, dispatcher::flush, dispatcher);
+        dispatcher.close();
+        slowPool.shutdown();
+    }
+
+    static void run(boolean print, String name, List<CheckingObserver> observers, Publisher publisher, Runnable flush,
+                    ObserverDispatcher dispatcher) {
+        long start = System.nanoTime();
+        for(int value = 0; value < PUBLISHES; value++) {
+            publisher.publish(value);
+        }
+        long published = System.nanoTime();
+        flush.run();
+        long delivered = System.nanoTime();
+
+        int outOfOrder = 0;
+        int missedLast = 0;
+        for(CheckingObserver observer : observers) {
+            outOfOrder += observer.outOfOrder;
+            if(observer.last != PUBLISHES - 1) {
+                missedLast++;
+            }
+        }
+        if(print) {
+            long notifications = (long) PUBLISHES * observers.size();
+            System.out.printf("%-12s %,10.0f publishes/s  %,12.0f notifications/s handled  |  dropped %,9d  coalesced %,9d"
+                            + "  |  out of order %d, without last value %d%n",
+                    name, PUBLISHES * 1e9 / (published - start), notifications * 1e9 / (delivered - start),
+                    dispatcher == null ? 0 : dispatcher.getDroppedCount(), dispatcher == null ? 0 : dispatcher.getCoalescedCount(),
+                    outOfOrder, missedLast);
+        }
+    }
+
+    static List<CheckingObserver> observers() {
+        List<CheckingObserver> observers = new ArrayList<>(OBSERVERS);
+        for(int i = 0; i < OBSERVERS; i++) {
+            observers.add(new CheckingObserver(i % (OBSERVERS / SLOW_OBSERVERS) == 0));
+        }
+        return observers;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.learninglld.observerPattern;
+
+import com.example.learninglld.observerPattern.observable.IphoneObservable;
+import com.example.learninglld.observerPattern.observable.Observable;
+import com.example.learninglld.observerPattern.observable.StockFeed;
+import com.example.learninglld.observerPattern.observer.MobileObserver;
+
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/*
+    StockFeed against one IphoneObservable and one observer per SKU:
+        memory   heap retained by SKUS SKUs, each watched by one observer
+        feed     HOT_SKUS of the SKUS updated as fast as one thread can for FEED_SECONDS, with a
+                 10 ms coalescing window; one listener watches every SKU, another a tenth of them
+    Afterwards the deltas each listener received are added up per SKU and compared with the
+    final values, to check that coalescing lost no change.
+
+        java -cp target/classes com.example.learninglld.observerPattern.StockFeedBenchmark
+ */
+public class StockFeedBenchmark {
+    private static final int SKUS = 1_000_000;
+    private static final int HOT_SKUS = 1_000;
+    private static final int FEED_SECONDS = 3;
+
+    public static void main(String[] args) {
+        long baseline = usedHeap();
+        List<Observable> observables = new ArrayList<>(SKUS);
+        for(int sku = 0; sku < SKUS; sku++) {
+            Observable observable = new IphoneObservable();
+            observable.addObserver(new MobileObserver(observable));
+            observables.add(observable);
+        }
+        report("IphoneObservable per SKU", usedHeap() - baseline);
+        Reference.reachabilityFence(observables);
+        observables = null;
+
+        int[] allTotals = new int[SKUS];
+        baseline = usedHeap();
+        StockFeed feed = StockFeed.builder()
+                .setExpectedSkus(SKUS)
+                .setCoalescingWindow(Duration.ofMillis(10))
+                .build();
+        feed.subscribe((sku, value, delta) -> allTotals[(int) sku] += delta);
+        for(int sku = 0; sku < SKUS; sku++) {
+            feed.setValue(sku, sku);
+        }
+        feed.flush();
+        report("StockFeed", usedHeap() - baseline);
+
+        long[] watched = new long[SKUS / 10];
+        for(int i = 0; i < watched.length; i++) {
+            watched[i] = i * 10L;
+        }
+        int[] someTotals = new int[SKUS];
+        feed.subscribe((sku, value, delta) -> someTotals[(int) sku] += delta, watched);
+        // the second listener starts from the values delivered so far
+        System.arraycopy(allTotals, 0, someTotals, 0, SKUS);
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] hot = new int[HOT_SKUS];
+        for(int i = 0; i < HOT_SKUS; i++) {
+            hot[i] = random.nextInt(SKUS);
+        }
+        long notificationsBefore = feed.getNotificationCount();
+        long updates = 0;
+        long start = System.nanoTime();
+        long end = start + FEED_SECONDS * 1_000_000_000L;
+        while(System.nanoTime() < end) {
+            for(int i = 0; i < 1 << 16; i++) {
+                feed.setValue(hot[i % HOT_SKUS], random.nextInt(1000));
+            }
+            updates += 1 << 16;
+        }
+        long nanos = System.nanoTime() - start;
+        feed.close();
+        long notifications = feed.getNotificationCount() - notificationsBefore;
+
+        int wrong = 0;
+        for(int sku = 0; sku < SKUS; sku++) {
+            int value = feed.getValue(sku);
+            if(allTotals[sku] != value || (sku % 10 == 0 && someTotals[sku] != value)) {
+                wrong++;
+            }
+        }
+        System.out.printf("feed: %,.0f updates/s (%.1f ns each, %,.0f per hot SKU per second), %,d notifications for %,d updates"
+                        + " (%.0fx fewer), %d SKUs with wrong totals%n",
+                updates * 1e9 / nanos, (double) nanos / updates, updates * 1e9 / nanos / HOT_SKUS, notifications, updates,
+                (double) updates / notifications, wrong);
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static void report(String name, long bytes) {
+        System.out.printf("%-26s %,14d bytes retained  %6.1f bytes/SKU%n", name, bytes, (double) bytes / SKUS);
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.learninglld.observerPattern.observable;
+
+import com.example.learninglld.observerPattern.observer.Observer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    One subscriber of an ObservablePublisher. It observes the Observable itself: update() only
+    puts the value into a bounded buffer, so the Observable never waits for the subscriber.
+
+    Values leave the buffer only as the subscriber requests them. All signals to the subscriber
+    (onSubscribe first, then onNext, onError or onComplete) come from run(), and a work counter
+    makes sure at most one run() is active, so they are never concurrent even though update(),
+    request() and cancel() can be called from any thread.
+ */
+final class FlowSubscription implements Flow.Subscription, Observer, Runnable {
+    private final ObservablePublisher publisher;
+    private final Observable observable;
+    private final Flow.Subscriber<? super Integer> subscriber;
+    private final Executor executor;
+    private final OverflowPolicy overflowPolicy;
+
+    // a ring of size values starting at head; guarded by this
+    private final int[] values;
+    private int head;
+    private int size;
+
+    private final AtomicLong requested = new AtomicLong();
+    // signals not yet handled by run(); run() is scheduled when this leaves 0
+    private final AtomicInteger work = new AtomicInteger();
+    // only read and written by run()
+    private boolean subscribed;
+    private volatile boolean done;
+    private volatile boolean completing;
+    private volatile Throwable error;
+
+    FlowSubscription(ObservablePublisher publisher, Observable observable, Flow.Subscriber<? super Integer> subscriber,
+                     Executor executor, OverflowPolicy overflowPolicy, int bufferSize) {
+        this.publisher = publisher;
+        this.observable = observable;
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.overflowPolicy = overflowPolicy;
+        this.values = new int[bufferSize];
+    }
+
+    void start() {
+        observable.addObserver(this);
+        signal();
+    }
+
+    // an Observable that does not pass the value is asked for it
+    @Override
+    public void update() {
+        Integer value = observable.getValue();
+        update(value == null ? 0 : value);
+    }
+
+    @Override
+    public void update(int value) {
+        if(done) {
+            return;
+        }
+        synchronized(this) {
+            if(size == values.length) {
+                switch (overflowPolicy) {
+                    case DROP_NEWEST -> {
+                        publisher.dropped();
+                        return;
+                    }
+                    case DROP_OLDEST -> {
+                        head = next(head);
+                        size--;
+                        publisher.dropped();
+                    }
+                    case COALESCE -> {
+                        values[index(size - 1)] = value;
+                        publisher.coalesced();
+                        return;
+                    }
+                }
+            }
+            values[index(size)] = value;
+            size++;
+        }
+        signal();
+    }
+
+    @Override
+    public void request(long n) {
+        if(n <= 0) {
+            error = new IllegalArgumentException("request must be positive: " + n);
+        }
+        else {
+            requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+        }
+        signal();
+    }
+
+    @Override
+    public void cancel() {
+        if(!done) {
+            done = true;
+            release();
+        }
+    }
+
+    // onComplete follows once the buffered values are delivered
+    void complete() {
+        completing = true;
+        signal();
+    }
+
+    @Override
+    public void run() {
+        int missed = 1;
+        while(true) {
+            if(!subscribed) {
+                subscribed = true;
+                try {
+                    subscriber.onSubscribe(this);
+                } catch (RuntimeException e) {
+                    cancel();
+                    e.printStackTrace();
+                }
+            }
+            drain();
+            missed = work.addAndGet(-missed);
+            if(missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        if(done) {
+            return;
+        }
+        Throwable failure = error;
+        if(failure != null) {
+            cancel();
+            subscriber.onError(failure);
+            return;
+        }
+        long demand = requested.get();
+        long emitted = 0;
+        while(emitted < demand && !done) {
+            int value;
+            synchronized(this) {
+                if(size == 0) {
+                    break;
+                }
+                value = values[head];
+                head = next(head);
+                size--;
+            }
+            try {
+                subscriber.onNext(value);
+            } catch (RuntimeException e) {
+                // a subscriber that throws is treated as having cancelled
+                cancel();
+                e.printStackTrace();
+                return;
+            }
+            emitted++;
+        }
+        if(emitted > 0 && demand != Long.MAX_VALUE) {
+            requested.addAndGet(-emitted);
+        }
+        if(completing && !done && isEmpty()) {
+            cancel();
+            subscriber.onComplete();
+        }
+    }
+
+    private synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void signal() {
+        if(work.getAndIncrement() == 0) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // no thread left to signal the subscriber on
+                cancel();
+            }
+        }
+    }
+
+    private void release() {
+        observable.removeObserver(this);
+        publisher.remove(this);
+        synchronized(this) {
+            size = 0;
+        }
+    }
+
+    private int index(int offset) {
+        int index = head + offset;
+        return index >= values.length ? index - values.length : index;
+    }
+
+    private int next(int index) {
+        return index + 1 == values.length ? 0 : index + 1;
+    }
+}
@@ -2,35 +2,67 @@ package com.example.learninglld.observerPattern.observable;
 
 import com.example.learninglld.observerPattern.observer.Observer;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/*
+    Notifies observers on the calling thread, one after the other, unless it is given an
+    ObserverDispatcher; then notifyObservers() only queues the value and the observers are
+    called on the dispatcher's threads.
+ */
 public class IphoneObservable implements Observable{
-    private Integer stockValue;
-    private List<Observer> observers = new ArrayList<>();
+    private int stockValue;
+    // copied on every change, so observers can be added and removed while notifying
+    private List<Observer> observers = new CopyOnWriteArrayList<>();
+    private final ObserverDispatcher dispatcher;
+
+    public IphoneObservable() {
+        this(null);
+    }
+
+    public IphoneObservable(ObserverDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
     @Override
     public void addObserver(Observer observer) {
-        this.observers.add(observer);
+        if(dispatcher != null) {
+            dispatcher.addObserver(observer);
+        }
+        else {
+            this.observers.add(observer);
+        }
     }
 
     @Override
     public void removeObserver(Observer observer) {
-        this.observers.remove(observer);
+        if(dispatcher != null) {
+            dispatcher.removeObserver(observer);
+        }
+        else {
+            this.observers.remove(observer);
+        }
     }
 
     @Override
     public void notifyObservers() {
+        if(dispatcher != null) {
+            dispatcher.publish(stockValue);
+            return;
+        }
         for (Observer observer : observers) {
-            observer.update();
+            observer.update(stockValue);
         }
     }
 
+    // observers hear about the stock coming back: a change from 0 to any other value
     @Override
     public void setValue(int value) {
-        if(this.stockValue == 0){
+        int previous = stockValue;
+        stockValue = value;
+        if(previous == 0 && value != 0){
             this.notifyObservers();
         }
-        stockValue = value;
     }
 
     @Override
@@ -0,0 +1,87 @@
+package com.example.learninglld.observerPattern.observable;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    An Observable seen as a Flow.Publisher of its values, for consumers that want to pull.
+
+    Every subscriber gets a FlowSubscription that observes the Observable and buffers up to
+    bufferSize values, which it hands out only as fast as the subscriber request()s them. The
+    Observable's update() calls never wait: when a subscriber falls bufferSize values behind,
+    the OverflowPolicy drops or coalesces its values, and the others are not affected. Signals
+    to subscribers run on the executor, by default the common ForkJoinPool.
+
+    The Observable never completes by itself; close() completes every subscriber once its
+    buffer is delivered.
+ */
+public class ObservablePublisher implements Flow.Publisher<Integer>, AutoCloseable {
+    private final Observable observable;
+    private final Executor executor;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final CopyOnWriteArrayList<FlowSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private volatile boolean closed;
+
+    ObservablePublisher(ObservablePublisherBuilder builder) {
+        this.observable = builder.observable;
+        this.executor = builder.executor;
+        this.bufferSize = builder.bufferSize;
+        this.overflowPolicy = builder.overflowPolicy;
+    }
+
+    public static ObservablePublisherBuilder builder(Observable observable) {
+        return new ObservablePublisherBuilder(observable);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Integer> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        FlowSubscription subscription = new FlowSubscription(this, observable, subscriber, executor, overflowPolicy, bufferSize);
+        subscriptions.add(subscription);
+        subscription.start();
+        if(closed) {
+            subscription.complete();
+        }
+    }
+
+    // completes every subscriber after the values already buffered for it
+    @Override
+    public void close() {
+        closed = true;
+        for(FlowSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    // values discarded by DROP_NEWEST or DROP_OLDEST, over all subscribers
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    // values merged into a buffered one by COALESCE, over all subscribers
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    void remove(FlowSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    void dropped() {
+        droppedCount.increment();
+    }
+
+    void coalesced() {
+        coalescedCount.increment();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.learninglld.observerPattern.observable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+public class ObservablePublisherBuilder {
+    final Observable observable;
+    Executor executor = ForkJoinPool.commonPool();
+    int bufferSize = Flow.defaultBufferSize();
+    OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+
+    ObservablePublisherBuilder(Observable observable) {
+        this.observable = observable;
+    }
+
+    // runs the signals to subscribers
+    public ObservablePublisherBuilder setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    // values buffered per subscriber before the OverflowPolicy applies
+    public ObservablePublisherBuilder setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public ObservablePublisherBuilder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    public ObservablePublisher build() {
+        if(observable == null || executor == null || overflowPolicy == null) {
+            throw new IllegalStateException("observable, executor and overflowPolicy must be set");
+        }
+        if(bufferSize <= 0) {
+            throw new IllegalStateException("bufferSize must be positive: " + bufferSize);
+        }
+        return new ObservablePublisher(this);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.learninglld.observerPattern.observable;
+
+import com.example.learninglld.observerPattern.observer.Observer;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Delivers notifications to observers on other threads, so the publisher never waits for an
+    observer's update().
+
+    Every observer has an ObserverMailbox: a bounded queue of values, drained in order by one
+    task at a time on the observer's executor. Observers are isolated from each other. A slow
+    observer only fills its own queue, and the OverflowPolicy then drops or coalesces its
+    notifications; the others are not affected. An observer whose update() must not share
+    threads with the others, or must run on a particular thread, is added with its own executor.
+
+    The mailboxes are kept in an array that addObserver() and removeObserver() replace instead
+    of modifying, so publish() reads it without a lock and subscribing never blocks publishing.
+ */
+public class ObserverDispatcher implements AutoCloseable {
+    private static final long FLUSH_PARK_NANOS = 100_000;
+
+    private final Executor executor;
+    // the pool started by the dispatcher, shut down by close(); null if the executor was given
+    private final ExecutorService ownedPool;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final OverflowPolicy overflowPolicy;
+    private volatile ObserverMailbox[] mailboxes = new ObserverMailbox[0];
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    ObserverDispatcher(ObserverDispatcherBuilder builder) {
+        if(builder.executor != null) {
+            this.executor = builder.executor;
+            this.ownedPool = null;
+        }
+        else {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.ownedPool = Executors.newFixedThreadPool(builder.threads, runnable -> {
+                Thread thread = new Thread(runnable, "observer-dispatch-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownedPool;
+        }
+        this.queueCapacity = builder.queueCapacity;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.overflowPolicy = builder.overflowPolicy;
+    }
+
+    public static ObserverDispatcherBuilder builder() {
+        return new ObserverDispatcherBuilder();
+    }
+
+    public void addObserver(Observer observer) {
+        addObserver(observer, executor);
+    }
+
+    // observer's notifications run on executor instead of the shared one
+    public synchronized void addObserver(Observer observer, Executor executor) {
+        ObserverMailbox[] updated = Arrays.copyOf(mailboxes, mailboxes.length + 1);
+        updated[mailboxes.length] = new ObserverMailbox(observer, executor, this, overflowPolicy, queueCapacity, maxBatchSize);
+        mailboxes = updated;
+    }
+
+    // notifications still queued for observer are discarded
+    public synchronized void removeObserver(Observer observer) {
+        ObserverMailbox[] current = mailboxes;
+        for(int i = 0; i < current.length; i++) {
+            if(current[i].observer.equals(observer)) {
+                ObserverMailbox[] updated = new ObserverMailbox[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                mailboxes = updated;
+                current[i].remove();
+                return;
+            }
+        }
+    }
+
+    // queues value for every observer and returns without waiting for any of them
+    public void publish(int value) {
+        for(ObserverMailbox mailbox : mailboxes) {
+            mailbox.offer(value);
+        }
+    }
+
+    // waits until every notification published so far has been delivered, dropped or coalesced
+    public void flush() {
+        for(ObserverMailbox mailbox : mailboxes) {
+            while(!mailbox.isIdle()) {
+                LockSupport.parkNanos(FLUSH_PARK_NANOS);
+            }
+        }
+    }
+
+    // stops the pool the dispatcher started, after the notifications already queued are delivered
+    @Override
+    public void close() {
+        flush();
+        if(ownedPool != null) {
+            ownedPool.shutdown();
+            try {
+                ownedPool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getObserverCount() {
+        return mailboxes.length;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    // notifications discarded by DROP_NEWEST or DROP_OLDEST, or because the executor was shut down
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    // notifications merged into a queued one by COALESCE
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    void delivered() {
+        deliveredCount.increment();
+    }
+
+    void dropped() {
+        droppedCount.increment();
+    }
+
+    void coalesced() {
+        coalescedCount.increment();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.learninglld.observerPattern.observable;
+
+import java.util.concurrent.Executor;
+
+public class ObserverDispatcherBuilder {
+    Executor executor;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int queueCapacity = 16;
+    int maxBatchSize = 64;
+    OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+
+    ObserverDispatcherBuilder() {
+    }
+
+    // runs observers that are added without an executor of their own; by default the dispatcher starts a pool of threads
+    public ObserverDispatcherBuilder setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    // size of the pool the dispatcher starts when no executor is set
+    public ObserverDispatcherBuilder setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    // notifications queued per observer before the OverflowPolicy applies
+    public ObserverDispatcherBuilder setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    // most notifications delivered to one observer before its thread moves on to other observers
+    public ObserverDispatcherBuilder setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public ObserverDispatcherBuilder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    public ObserverDispatcher build() {
+        if(queueCapacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalStateException("queue capacity and batch size must be positive");
+        }
+        if(executor == null && threads <= 0) {
+            throw new IllegalStateException("threads must be positive: " + threads);
+        }
+        if(overflowPolicy == null) {
+            throw new IllegalStateException("overflowPolicy must be set");
+        }
+        return new ObserverDispatcher(this);
+    }
+}
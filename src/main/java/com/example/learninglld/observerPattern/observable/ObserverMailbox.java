@@ -0,0 +1,138 @@
+package com.example.learninglld.observerPattern.observable;
+
+import com.example.learninglld.observerPattern.observer.Observer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/*
+    The bounded queue of notifications for one observer. At most one task per mailbox is
+    submitted to the executor at a time, and that task delivers the queued values in order, so
+    the observer sees notifications one at a time and in the order they were published, whatever
+    executor runs it.
+
+    A task delivers at most maxBatchSize values and then resubmits itself, so an observer with a
+    long queue takes turns with the others on a shared pool.
+ */
+final class ObserverMailbox implements Runnable {
+    final Observer observer;
+    private final Executor executor;
+    private final ObserverDispatcher dispatcher;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxBatchSize;
+
+    // a ring of size values starting at head; guarded by this
+    private final int[] values;
+    private int head;
+    private int size;
+    // whether a task is submitted or running
+    private boolean scheduled;
+    private boolean removed;
+
+    ObserverMailbox(Observer observer, Executor executor, ObserverDispatcher dispatcher, OverflowPolicy overflowPolicy,
+                    int capacity, int maxBatchSize) {
+        this.observer = observer;
+        this.executor = executor;
+        this.dispatcher = dispatcher;
+        this.overflowPolicy = overflowPolicy;
+        this.values = new int[capacity];
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    void offer(int value) {
+        synchronized(this) {
+            if(removed) {
+                return;
+            }
+            if(size == values.length) {
+                switch (overflowPolicy) {
+                    case DROP_NEWEST -> {
+                        dispatcher.dropped();
+                        return;
+                    }
+                    case DROP_OLDEST -> {
+                        head = next(head);
+                        size--;
+                        dispatcher.dropped();
+                    }
+                    case COALESCE -> {
+                        values[index(size - 1)] = value;
+                        dispatcher.coalesced();
+                        return;
+                    }
+                }
+            }
+            values[index(size)] = value;
+            size++;
+            if(scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        submit();
+    }
+
+    @Override
+    public void run() {
+        for(int delivered = 0; delivered < maxBatchSize; delivered++) {
+            int value;
+            synchronized(this) {
+                if(size == 0 || removed) {
+                    scheduled = false;
+                    return;
+                }
+                value = values[head];
+                head = next(head);
+                size--;
+            }
+            try {
+                observer.update(value);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            dispatcher.delivered();
+        }
+        synchronized(this) {
+            if(size == 0 || removed) {
+                scheduled = false;
+                return;
+            }
+        }
+        submit();
+    }
+
+    // stops delivery; notifications still queued are discarded
+    synchronized void remove() {
+        removed = true;
+        size = 0;
+    }
+
+    // nothing queued and no task running
+    synchronized boolean isIdle() {
+        return !scheduled;
+    }
+
+    private void submit() {
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            // the executor was shut down; the queued notifications can't be delivered
+            synchronized(this) {
+                for(int i = 0; i < size; i++) {
+                    dispatcher.dropped();
+                }
+                size = 0;
+                scheduled = false;
+            }
+        }
+    }
+
+    private int index(int offset) {
+        int index = head + offset;
+        return index >= values.length ? index - values.length : index;
+    }
+
+    private int next(int index) {
+        return index + 1 == values.length ? 0 : index + 1;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.learninglld.observerPattern.observable;
+
+// what ObserverDispatcher does with a notification for an observer whose queue is full
+public enum OverflowPolicy {
+    // discard the new notification
+    DROP_NEWEST,
+    // discard the oldest queued notification to make room
+    DROP_OLDEST,
+    // replace the newest queued notification, so the observer still gets the latest value
+    COALESCE
+}
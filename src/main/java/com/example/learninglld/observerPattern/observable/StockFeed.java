@@ -0,0 +1,177 @@
+package com.example.learninglld.observerPattern.observable;
+
+import com.example.learninglld.observerPattern.observer.StockListener;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Stock values of many SKUs, for feeds that update each SKU far more often than anyone needs
+    to hear about it.
+
+    setValue() stores a primitive int in a StockTable stripe and marks the SKU changed; it never
+    calls a listener. Once per coalescing window a background thread delivers one notification
+    per changed SKU, holding the current value and the delta since the SKU's previous
+    notification. A SKU updated a thousand times in a window costs one notification, and a SKU
+    that ends the window where it started costs none.
+
+    A listener watches every SKU, or a set of SKUs kept as a sorted long[]: one listener object
+    per observer, however many SKUs it watches. Subscriptions are copy-on-write. Listeners are
+    called one change at a time, on the delivering thread, so a slow listener delays the next
+    delivery but never setValue().
+ */
+public class StockFeed implements AutoCloseable {
+    private final StockTable[] stripes;
+    private final int stripeMask;
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    // serializes deliveries, so listeners are never called concurrently
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+    private final StockTable.Changes changes = new StockTable.Changes();
+    // null when the window is zero and the caller flushes
+    private final ScheduledExecutorService deliverer;
+    private final LongAdder updateCount = new LongAdder();
+    private final LongAdder notificationCount = new LongAdder();
+
+    private static final class Subscription {
+        final StockListener listener;
+        // sorted; null for every SKU
+        final long[] skus;
+
+        Subscription(StockListener listener, long[] skus) {
+            this.listener = listener;
+            this.skus = skus;
+        }
+
+        boolean watches(long sku) {
+            return skus == null || Arrays.binarySearch(skus, sku) >= 0;
+        }
+    }
+
+    StockFeed(StockFeedBuilder builder) {
+        this.stripes = new StockTable[builder.stripes];
+        for(int i = 0; i < stripes.length; i++) {
+            stripes[i] = new StockTable(builder.expectedSkus / builder.stripes);
+        }
+        this.stripeMask = builder.stripes - 1;
+        if(builder.coalescingWindow.isZero()) {
+            this.deliverer = null;
+        }
+        else {
+            this.deliverer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "stock-feed");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long window = builder.coalescingWindow.toNanos();
+            deliverer.scheduleWithFixedDelay(this::flush, window, window, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public static StockFeedBuilder builder() {
+        return new StockFeedBuilder();
+    }
+
+    public void setValue(long sku, int value) {
+        long hash = StockTable.hash(sku);
+        stripes[(int) (hash >>> 32) & stripeMask].set(sku, hash, value);
+        updateCount.increment();
+    }
+
+    // 0 for a SKU that was never set
+    public int getValue(long sku) {
+        long hash = StockTable.hash(sku);
+        return stripes[(int) (hash >>> 32) & stripeMask].get(sku, hash);
+    }
+
+    // listener gets the changes of every SKU
+    public void subscribe(StockListener listener) {
+        addSubscription(new Subscription(listener, null));
+    }
+
+    // listener gets the changes of the given SKUs only
+    public void subscribe(StockListener listener, long... skus) {
+        long[] sorted = skus.clone();
+        Arrays.sort(sorted);
+        addSubscription(new Subscription(listener, sorted));
+    }
+
+    public synchronized void unsubscribe(StockListener listener) {
+        Subscription[] current = subscriptions;
+        for(int i = 0; i < current.length; i++) {
+            if(current[i].listener.equals(listener)) {
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
+    }
+
+    private synchronized void addSubscription(Subscription subscription) {
+        Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        updated[subscriptions.length] = subscription;
+        subscriptions = updated;
+    }
+
+    // delivers the changes since the last delivery now, on the calling thread
+    public void flush() {
+        deliveryLock.lock();
+        try {
+            for(StockTable stripe : stripes) {
+                stripe.drain(changes);
+            }
+            Subscription[] current = subscriptions;
+            for(int i = 0; i < changes.count; i++) {
+                long sku = changes.skus[i];
+                for(Subscription subscription : current) {
+                    if(subscription.watches(sku)) {
+                        try {
+                            subscription.listener.onChange(sku, changes.values[i], changes.deltas[i]);
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                        notificationCount.increment();
+                    }
+                }
+            }
+            changes.count = 0;
+        } finally {
+            deliveryLock.unlock();
+        }
+    }
+
+    // stops the background delivery and delivers what is left
+    @Override
+    public void close() {
+        if(deliverer != null) {
+            deliverer.shutdown();
+            try {
+                deliverer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    public int getSkuCount() {
+        int count = 0;
+        for(StockTable stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    public long getUpdateCount() {
+        return updateCount.sum();
+    }
+
+    public long getNotificationCount() {
+        return notificationCount.sum();
+    }
+}
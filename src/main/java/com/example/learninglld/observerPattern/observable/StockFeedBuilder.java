@@ -0,0 +1,43 @@
+package com.example.learninglld.observerPattern.observable;
+
+import java.time.Duration;
+
+public class StockFeedBuilder {
+    Duration coalescingWindow = Duration.ofMillis(10);
+    int expectedSkus = 1 << 16;
+    int stripes = 16;
+
+    StockFeedBuilder() {
+    }
+
+    // how often changes are delivered; with Duration.ZERO nothing is delivered until flush() is called
+    public StockFeedBuilder setCoalescingWindow(Duration coalescingWindow) {
+        this.coalescingWindow = coalescingWindow;
+        return this;
+    }
+
+    // SKUs the feed is sized for up front; it grows past that as needed
+    public StockFeedBuilder setExpectedSkus(int expectedSkus) {
+        this.expectedSkus = expectedSkus;
+        return this;
+    }
+
+    // independently locked parts of the table, so feeds updating different SKUs rarely contend; a power of two
+    public StockFeedBuilder setStripes(int stripes) {
+        this.stripes = stripes;
+        return this;
+    }
+
+    public StockFeed build() {
+        if(coalescingWindow == null || coalescingWindow.isNegative()) {
+            throw new IllegalStateException("coalescingWindow must not be negative: " + coalescingWindow);
+        }
+        if(expectedSkus < 0) {
+            throw new IllegalStateException("expectedSkus must not be negative: " + expectedSkus);
+        }
+        if(Integer.bitCount(stripes) != 1) {
+            throw new IllegalStateException("stripes must be a power of two: " + stripes);
+        }
+        return new StockFeed(this);
+    }
+}
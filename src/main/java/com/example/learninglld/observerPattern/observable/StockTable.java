@@ -0,0 +1,160 @@
+package com.example.learninglld.observerPattern.observable;
+
+/*
+    One stripe of a StockFeed: an open-addressing table from SKU to stock value, in parallel
+    primitive arrays, so a SKU costs a few array slots and no objects.
+
+    Besides the current value, each SKU keeps the value it was last delivered with. A SKU whose
+    value changes is marked dirty and put on a list once, however often it changes before the
+    next drain(), which is what coalesces a burst of updates into one notification.
+ */
+final class StockTable {
+    private static final byte EMPTY = 0;
+    private static final byte CLEAN = 1;
+    private static final byte DIRTY = 2;
+
+    private long[] skus;
+    private int[] values;
+    private int[] delivered;
+    private byte[] states;
+    private int mask;
+    private int size;
+    // slots of the dirty SKUs
+    private int[] dirty = new int[64];
+    private int dirtyCount;
+
+    StockTable(int expectedSkus) {
+        // at most half full
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSkus) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    static long hash(long sku) {
+        sku ^= sku >>> 33;
+        sku *= 0xff51afd7ed558ccdL;
+        sku ^= sku >>> 33;
+        sku *= 0xc4ceb9fe1a85ec53L;
+        return sku ^ (sku >>> 33);
+    }
+
+    synchronized void set(long sku, long hash, int value) {
+        int slot = (int) hash & mask;
+        while(states[slot] != EMPTY && skus[slot] != sku) {
+            slot = (slot + 1) & mask;
+        }
+        if(states[slot] == EMPTY) {
+            skus[slot] = sku;
+            states[slot] = CLEAN;
+            if(++size > (mask + 1) / 2) {
+                values[slot] = value;
+                rehash();
+                return;
+            }
+        }
+        values[slot] = value;
+        if(states[slot] == CLEAN) {
+            states[slot] = DIRTY;
+            addDirty(slot);
+        }
+    }
+
+    // 0 for a SKU that was never set
+    synchronized int get(long sku, long hash) {
+        int slot = (int) hash & mask;
+        while(states[slot] != EMPTY) {
+            if(skus[slot] == sku) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // appends the SKUs whose value changed since the last drain to changes, and marks them delivered
+    synchronized void drain(Changes changes) {
+        for(int i = 0; i < dirtyCount; i++) {
+            int slot = dirty[i];
+            states[slot] = CLEAN;
+            int delta = values[slot] - delivered[slot];
+            if(delta != 0) {
+                delivered[slot] = values[slot];
+                changes.add(skus[slot], values[slot], delta);
+            }
+        }
+        dirtyCount = 0;
+    }
+
+    private void addDirty(int slot) {
+        if(dirtyCount == dirty.length) {
+            int[] larger = new int[dirty.length * 2];
+            System.arraycopy(dirty, 0, larger, 0, dirtyCount);
+            dirty = larger;
+        }
+        dirty[dirtyCount++] = slot;
+    }
+
+    private void allocate(int capacity) {
+        skus = new long[capacity];
+        values = new int[capacity];
+        delivered = new int[capacity];
+        states = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    // doubles the table; the dirty list holds slots, so it is rebuilt
+    private void rehash() {
+        long[] oldSkus = skus;
+        int[] oldValues = values;
+        int[] oldDelivered = delivered;
+        byte[] oldStates = states;
+        allocate(oldSkus.length * 2);
+        dirtyCount = 0;
+        for(int old = 0; old < oldSkus.length; old++) {
+            if(oldStates[old] == EMPTY) {
+                continue;
+            }
+            int slot = (int) hash(oldSkus[old]) & mask;
+            while(states[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            skus[slot] = oldSkus[old];
+            values[slot] = oldValues[old];
+            delivered[slot] = oldDelivered[old];
+            states[slot] = values[slot] != delivered[slot] || oldStates[old] == DIRTY ? DIRTY : CLEAN;
+            if(states[slot] == DIRTY) {
+                addDirty(slot);
+            }
+        }
+    }
+
+    // changes drained from the stripes, reused from one delivery to the next
+    static final class Changes {
+        long[] skus = new long[256];
+        int[] values = new int[256];
+        int[] deltas = new int[256];
+        int count;
+
+        void add(long sku, int value, int delta) {
+            if(count == skus.length) {
+                int capacity = count * 2;
+                long[] largerSkus = new long[capacity];
+                int[] largerValues = new int[capacity];
+                int[] largerDeltas = new int[capacity];
+                System.arraycopy(skus, 0, largerSkus, 0, count);
+                System.arraycopy(values, 0, largerValues, 0, count);
+                System.arraycopy(deltas, 0, largerDeltas, 0, count);
+                skus = largerSkus;
+                values = largerValues;
+                deltas = largerDeltas;
+            }
+            skus[count] = sku;
+            values[count] = value;
+            deltas[count] = delta;
+            count++;
+        }
+    }
+}
@@ -14,4 +14,9 @@ public class MobileObserver implements Observer {
     public void update() {
         System.out.println("MobileObserver notified, new iPhone value: ");
     }
+
+    @Override
+    public void update(int value) {
+        System.out.println("MobileObserver notified, new iPhone value: " + value);
+    }
 }
@@ -2,4 +2,9 @@ package com.example.learninglld.observerPattern.observer;
 
 public interface Observer {
     public void update();
+
+    // called with the value that was published; observers that need it override this
+    default void update(int value) {
+        update();
+    }
 }
@@ -0,0 +1,10 @@
+package com.example.learninglld.observerPattern.observer;
+
+/*
+    Observer of a StockFeed. One listener receives the changes of every SKU it watches, so
+    watching a million SKUs takes one object, not a million.
+ */
+public interface StockListener {
+    // value is the SKU's stock now, delta the change since the SKU's previous notification
+    void onChange(long sku, int value, int delta);
+}
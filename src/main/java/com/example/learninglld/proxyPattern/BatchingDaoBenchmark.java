@@ -0,0 +1,118 @@
+package com.example.learninglld.proxyPattern;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Lookup throughput and latency through BatchingEmployeeDaoProxy for a range of batch windows,
+    against calling the DAO directly. The stand-in DAO has CONNECTIONS connections and takes
+    ROUND_TRIP_MICROS per call plus PER_KEY_MICROS per id, like a database reached over a
+    network. CALLERS virtual threads each look up LOOKUPS random ids, one after the other.
+
+        java -cp target/classes com.example.learninglld.proxyPattern.BatchingDaoBenchmark
+ */
+public class BatchingDaoBenchmark {
+    private static final int CALLERS = 200;
+    private static final int LOOKUPS = 100;
+    private static final int CONNECTIONS = 8;
+    private static final long ROUND_TRIP_MICROS = 1_000;
+    private static final long PER_KEY_MICROS = 5;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long[] WINDOW_MICROS = {50, 200, 500, 1_000, 2_000, 5_000};
+
+    static class RemoteEmployeeDao implements EmployeeDao {
+        private final Semaphore connections = new Semaphore(CONNECTIONS);
+        final AtomicLong calls = new AtomicLong();
+
+        @Override
+        public void saveEmployee(Employee employee, String user) {
+            roundTrip(1);
+        }
+
+        @Override
+        public Employee getEmployeeById(Integer id, String user) {
+            roundTrip(1);
+            return new Employee("employee " + id, id);
+        }
+
+        @Override
+        public Map<Integer, Employee> getEmployeesByIds(Collection<Integer> ids, String user) {
+            roundTrip(ids.size());
+            Map<Integer, Employee> employees = new HashMap<>();
+            for(Integer id : ids) {
+                employees.put(id, new Employee("employee " + id, id));
+            }
+            return employees;
+        }
+
+        @Override
+        public void saveEmployees(Collection<Employee> employees, String user) {
+            roundTrip(employees.size());
+        }
+
+        private void roundTrip(int keys) {
+            calls.incrementAndGet();
+            connections.acquireUninterruptibly();
+            try {
+                LockSupport.parkNanos((ROUND_TRIP_MICROS + PER_KEY_MICROS * keys) * 1_000);
+            } finally {
+                connections.release();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        RemoteEmployeeDao direct = new RemoteEmployeeDao();
+        run("direct", direct, direct, null);
+        for(long window : WINDOW_MICROS) {
+            RemoteEmployeeDao backend = new RemoteEmployeeDao();
+            try(BatchingEmployeeDaoProxy proxy = BatchingEmployeeDaoProxy.builder(backend)
+                    .setBatchWindow(Duration.ofNanos(window * 1_000))
+                    .setMaxBatchSize(MAX_BATCH_SIZE)
+                    .setThreads(CONNECTIONS)
+                    .build()) {
+                run("window " + window + " us", proxy, backend, proxy);
+            }
+        }
+    }
+
+    static void run(String name, EmployeeDao dao, RemoteEmployeeDao backend, BatchingEmployeeDaoProxy proxy) throws Exception {
+        long[][] latencies = new long[CALLERS][LOOKUPS];
+        long start = System.nanoTime();
+        try(ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < CALLERS; i++) {
+                long[] callerLatencies = latencies[i];
+                SplittableRandom random = new SplittableRandom(i);
+                futures.add(callers.submit(() -> {
+                    for(int lookup = 0; lookup < LOOKUPS; lookup++) {
+                        long before = System.nanoTime();
+                        dao.getEmployeeById(random.nextInt(100_000), "ADMIN");
+                        callerLatencies[lookup] = System.nanoTime() - before;
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+
+        long[] sorted = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-16s %,9.0f lookups/s  |  p50 %,7d us  p99 %,7d us  |  %,7d backend calls, %6.1f ids per batch%n",
+                name, sorted.length * 1e9 / nanos, sorted[sorted.length / 2] / 1_000, sorted[(int) (sorted.length * 0.99)] / 1_000,
+                backend.calls.get(), proxy == null ? 1.0 : proxy.getAverageBatchSize());
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.learninglld.proxyPattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Proxy that turns many single-id calls into few batch calls. Lookups and saves are collected
+    per user. A batch is sent when it holds maxBatchSize calls, or batchWindow after its first
+    call, whichever comes first: one getEmployeesByIds and one saveEmployees to the wrapped
+    EmployeeDao instead of one round trip per call. Asking for an id twice in one batch asks the
+    DAO once.
+
+    The async methods return a future per call, completed when its batch returns. The EmployeeDao
+    methods wait for that future, so callers see the usual blocking behaviour; many of them just
+    share round trips. A batch writes its saves before it reads, so a lookup sees saves made
+    before it in the same batch.
+ */
+public class BatchingEmployeeDaoProxy implements EmployeeDao, AutoCloseable {
+    private final EmployeeDao employeeDao;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService executor;
+    private final ReentrantLock lock = new ReentrantLock();
+    // the batch collecting calls for each user; guarded by lock
+    private final Map<String, Batch> pending = new HashMap<>();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder callCount = new LongAdder();
+
+    private static final class Batch {
+        final String user;
+        final Map<Integer, CompletableFuture<Employee>> reads = new LinkedHashMap<>();
+        final List<Employee> writes = new ArrayList<>();
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+        int calls;
+        ScheduledFuture<?> timer;
+
+        Batch(String user) {
+            this.user = user;
+        }
+    }
+
+    BatchingEmployeeDaoProxy(BatchingEmployeeDaoProxyBuilder builder) {
+        this.employeeDao = builder.employeeDao;
+        this.batchWindowNanos = builder.batchWindow.toNanos();
+        this.maxBatchSize = builder.maxBatchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(builder.threads, runnable -> {
+            Thread thread = new Thread(runnable, "employee-batch-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static BatchingEmployeeDaoProxyBuilder builder(EmployeeDao employeeDao) {
+        return new BatchingEmployeeDaoProxyBuilder(employeeDao);
+    }
+
+    public CompletableFuture<Employee> getEmployeeByIdAsync(Integer id, String user) {
+        CompletableFuture<Employee> future;
+        Batch full;
+        lock.lock();
+        try {
+            Batch batch = batchFor(user);
+            future = batch.reads.computeIfAbsent(id, key -> new CompletableFuture<>());
+            full = added(batch);
+        } finally {
+            lock.unlock();
+        }
+        if(full != null) {
+            executor.execute(() -> send(full));
+        }
+        return future;
+    }
+
+    public CompletableFuture<Void> saveEmployeeAsync(Employee employee, String user) {
+        CompletableFuture<Void> future;
+        Batch full;
+        lock.lock();
+        try {
+            Batch batch = batchFor(user);
+            batch.writes.add(employee);
+            future = batch.written;
+            full = added(batch);
+        } finally {
+            lock.unlock();
+        }
+        if(full != null) {
+            executor.execute(() -> send(full));
+        }
+        return future;
+    }
+
+    @Override
+    public Employee getEmployeeById(Integer id, String user) {
+        return await(getEmployeeByIdAsync(id, user));
+    }
+
+    @Override
+    public void saveEmployee(Employee employee, String user) {
+        await(saveEmployeeAsync(employee, user));
+    }
+
+    // already a batch; passed straight through
+    @Override
+    public Map<Integer, Employee> getEmployeesByIds(Collection<Integer> ids, String user) {
+        return employeeDao.getEmployeesByIds(ids, user);
+    }
+
+    @Override
+    public void saveEmployees(Collection<Employee> employees, String user) {
+        employeeDao.saveEmployees(employees, user);
+    }
+
+    // sends every pending batch and waits for them, then stops the proxy's threads
+    @Override
+    public void close() {
+        List<Batch> batches;
+        lock.lock();
+        try {
+            batches = new ArrayList<>(pending.values());
+            pending.clear();
+        } finally {
+            lock.unlock();
+        }
+        for(Batch batch : batches) {
+            batch.timer.cancel(false);
+            send(batch);
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    // calls answered by the batches sent so far
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0.0 : (double) callCount.sum() / batches;
+    }
+
+    private Batch batchFor(String user) {
+        Batch batch = pending.get(user);
+        if(batch == null) {
+            batch = new Batch(user);
+            Batch scheduled = batch;
+            batch.timer = executor.schedule(() -> expire(scheduled), batchWindowNanos, TimeUnit.NANOSECONDS);
+            pending.put(user, batch);
+        }
+        return batch;
+    }
+
+    // counts a call; returns the batch if that filled it, after taking it out of pending
+    private Batch added(Batch batch) {
+        batch.calls++;
+        if(batch.calls < maxBatchSize) {
+            return null;
+        }
+        pending.remove(batch.user);
+        batch.timer.cancel(false);
+        return batch;
+    }
+
+    private void expire(Batch batch) {
+        lock.lock();
+        try {
+            // a batch that filled up was sent already
+            if(!pending.remove(batch.user, batch)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        batchCount.increment();
+        callCount.add(batch.calls);
+        if(!batch.writes.isEmpty()) {
+            try {
+                employeeDao.saveEmployees(batch.writes, batch.user);
+                batch.written.complete(null);
+            } catch (Throwable e) {
+                // any Throwable, or the callers waiting on the batch would hang
+                batch.written.completeExceptionally(e);
+            }
+        }
+        if(batch.reads.isEmpty()) {
+            return;
+        }
+        Map<Integer, Employee> employees;
+        try {
+            employees = employeeDao.getEmployeesByIds(batch.reads.keySet(), batch.user);
+        } catch (Throwable e) {
+            batch.reads.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        batch.reads.forEach((id, future) -> future.complete(employees.get(id)));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
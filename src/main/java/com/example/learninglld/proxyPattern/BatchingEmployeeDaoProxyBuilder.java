@@ -0,0 +1,45 @@
+package com.example.learninglld.proxyPattern;
+
+import java.time.Duration;
+
+public class BatchingEmployeeDaoProxyBuilder {
+    final EmployeeDao employeeDao;
+    Duration batchWindow = Duration.ofMillis(1);
+    int maxBatchSize = 128;
+    int threads = 4;
+
+    BatchingEmployeeDaoProxyBuilder(EmployeeDao employeeDao) {
+        this.employeeDao = employeeDao;
+    }
+
+    // longest a call waits for others to share its batch
+    public BatchingEmployeeDaoProxyBuilder setBatchWindow(Duration batchWindow) {
+        this.batchWindow = batchWindow;
+        return this;
+    }
+
+    // calls after which a batch is sent without waiting for the window to end
+    public BatchingEmployeeDaoProxyBuilder setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    // threads sending batches, i.e. how many batch calls can be in flight at once
+    public BatchingEmployeeDaoProxyBuilder setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public BatchingEmployeeDaoProxy build() {
+        if(employeeDao == null) {
+            throw new IllegalStateException("employeeDao must be set");
+        }
+        if(batchWindow == null || batchWindow.isNegative() || batchWindow.isZero()) {
+            throw new IllegalStateException("batchWindow must be positive: " + batchWindow);
+        }
+        if(maxBatchSize <= 0 || threads <= 0) {
+            throw new IllegalStateException("batch size and threads must be positive");
+        }
+        return new BatchingEmployeeDaoProxy(this);
+    }
+}
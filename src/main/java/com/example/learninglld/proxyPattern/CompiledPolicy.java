@@ -0,0 +1,151 @@
+package com.example.learninglld.proxyPattern;
+
+import com.example.learninglld.designHashMap.MyHashMapCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    A set of PolicyRules compiled for fast decisions. Every role named in the rules gets a bit,
+    and every operation gets an OperationPolicy holding, per tenant, the mask of roles allowed
+    and the mask of roles denied, with the ANY rules already merged in. A decision is then a map
+    lookup and two mask tests. Operations no rule names are compiled from the ANY rules the
+    first time they are asked for.
+
+    Decisions are cached per operation and principal, and each principal's tenant and roles
+    are cached once for all operations, so the RoleDirectory is only asked again when an entry
+    expires. Loading new rules builds a new CompiledPolicy, which starts with empty caches.
+ */
+final class CompiledPolicy {
+    private final PolicyEngine engine;
+    private final Map<String, Integer> roleBits = new HashMap<>();
+    private final List<PolicyRule> rules;
+    private final ConcurrentHashMap<String, OperationPolicy> operations = new ConcurrentHashMap<>();
+    private final MyHashMapCache<String, Subject> subjects;
+
+    // a principal as the directory describes it, with its roles as a mask
+    private static final class Subject {
+        final String tenant;
+        final long roles;
+
+        Subject(String tenant, long roles) {
+            this.tenant = tenant;
+            this.roles = roles;
+        }
+    }
+
+    private static final class Grant {
+        long allowed;
+        long denied;
+    }
+
+    final class OperationPolicy {
+        final CompiledPolicy policy = CompiledPolicy.this;
+        private final Map<String, Grant> byTenant;
+        private final Grant anyTenant;
+        private final MyHashMapCache<String, Boolean> decisions;
+
+        private OperationPolicy(String operation) {
+            anyTenant = new Grant();
+            byTenant = new HashMap<>();
+            for(PolicyRule rule : rules) {
+                if(matches(rule.getOperation(), operation) && !rule.getTenant().equals(PolicyRule.ANY)) {
+                    byTenant.putIfAbsent(rule.getTenant(), new Grant());
+                }
+            }
+            for(PolicyRule rule : rules) {
+                if(!matches(rule.getOperation(), operation)) {
+                    continue;
+                }
+                if(rule.getTenant().equals(PolicyRule.ANY)) {
+                    add(anyTenant, rule);
+                    byTenant.values().forEach(grant -> add(grant, rule));
+                }
+                else {
+                    add(byTenant.get(rule.getTenant()), rule);
+                }
+            }
+            decisions = engine.newCache();
+        }
+
+        boolean isAllowed(String principal) {
+            Boolean cached = decisions.get(principal);
+            if(cached != null) {
+                return cached;
+            }
+            boolean allowed = decide(subject(principal));
+            decisions.put(principal, allowed);
+            return allowed;
+        }
+
+        private boolean decide(Subject subject) {
+            Grant grant = byTenant.getOrDefault(subject.tenant, anyTenant);
+            return (subject.roles & grant.denied) == 0 && (subject.roles & grant.allowed) != 0;
+        }
+
+        MyHashMapCache<String, Boolean> decisions() {
+            return decisions;
+        }
+    }
+
+    CompiledPolicy(PolicyEngine engine, List<PolicyRule> rules) {
+        this.engine = engine;
+        this.rules = new ArrayList<>(rules);
+        for(PolicyRule rule : this.rules) {
+            if(!roleBits.containsKey(rule.getRole())) {
+                if(roleBits.size() == Long.SIZE) {
+                    throw new IllegalArgumentException("rules may name at most " + Long.SIZE + " roles");
+                }
+                roleBits.put(rule.getRole(), roleBits.size());
+            }
+        }
+        for(PolicyRule rule : this.rules) {
+            if(!rule.getOperation().equals(PolicyRule.ANY)) {
+                operations.computeIfAbsent(rule.getOperation(), OperationPolicy::new);
+            }
+        }
+        this.subjects = engine.newCache();
+    }
+
+    OperationPolicy operation(String operation) {
+        OperationPolicy compiled = operations.get(operation);
+        return compiled != null ? compiled : operations.computeIfAbsent(operation, OperationPolicy::new);
+    }
+
+    Iterable<OperationPolicy> operations() {
+        return operations.values();
+    }
+
+    private Subject subject(String principal) {
+        Subject subject = subjects.get(principal);
+        if(subject == null) {
+            long roles = 0;
+            for(String role : engine.lookUpRoles(principal)) {
+                Integer bit = roleBits.get(role);
+                if(bit != null) {
+                    roles |= 1L << bit;
+                }
+            }
+            subject = new Subject(engine.lookUpTenant(principal), roles);
+            subjects.put(principal, subject);
+        }
+        return subject;
+    }
+
+    private void add(Grant grant, PolicyRule rule) {
+        long bit = 1L << roleBits.get(rule.getRole());
+        if(rule.getEffect() == PolicyRule.Effect.ALLOW) {
+            grant.allowed |= bit;
+        }
+        else {
+            grant.denied |= bit;
+        }
+    }
+
+    private static boolean matches(String pattern, String value) {
+        return pattern.equals(PolicyRule.ANY) || pattern.equals(value);
+    }
+}
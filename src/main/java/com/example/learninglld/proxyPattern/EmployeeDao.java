@@ -1,7 +1,30 @@
 package com.example.learninglld.proxyPattern;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 public interface EmployeeDao {
     void saveEmployee(Employee employee, String user);
 
     Employee getEmployeeById(Integer id, String user);
+
+    // ids with no employee are left out of the map; implementations should answer in one round trip
+    default Map<Integer, Employee> getEmployeesByIds(Collection<Integer> ids, String user) {
+        Map<Integer, Employee> employees = new HashMap<>();
+        for(Integer id : ids) {
+            Employee employee = getEmployeeById(id, user);
+            if(employee != null) {
+                employees.put(id, employee);
+            }
+        }
+        return employees;
+    }
+
+    // implementations should write all employees in one round trip
+    default void saveEmployees(Collection<Employee> employees, String user) {
+        for(Employee employee : employees) {
+            saveEmployee(employee, user);
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package com.example.learninglld.proxyPattern;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 public class EmployeeDaoImpl implements EmployeeDao {
     public void saveEmployee(Employee employee, String user) {
         System.out.println("Saving employee: " + employee.getName());
@@ -10,4 +14,20 @@ public class EmployeeDaoImpl implements EmployeeDao {
         // Implementation to fetch employee from database
         return new Employee("John Doe", id);
     }
+
+    @Override
+    public Map<Integer, Employee> getEmployeesByIds(Collection<Integer> ids, String user) {
+        System.out.println("Getting employees by ids: " + ids);
+        // Implementation to fetch all employees with one query, e.g. WHERE id IN (...)
+        Map<Integer, Employee> employees = new HashMap<>();
+        for(Integer id : ids) {
+            employees.put(id, new Employee("John Doe", id));
+        }
+        return employees;
+    }
+
+    @Override
+    public void saveEmployees(Collection<Employee> employees, String user) {
+        System.out.println("Saving " + employees.size() + " employees");
+    }
 }
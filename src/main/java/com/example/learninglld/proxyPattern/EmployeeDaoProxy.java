@@ -1,14 +1,62 @@
 package com.example.learninglld.proxyPattern;
 
+import com.example.learninglld.designHashMap.MyHashMapCache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Protection proxy for an EmployeeDao, optionally caching getEmployeeById. Only ADMIN may call
+    it, unless a PolicyEngine is given; then the engine decides per operation, by method name.
+
+    With a cache, a miss is loaded once however many callers want the id at the same time: the
+    first caller registers a future in inFlight and loads, the others wait for that future.
+    The bound and the TTL are the cache's (setMaximumSize, setExpireAfterWrite).
+
+    saveEmployee invalidates the saved id. A load that was already running when the save
+    happened still answers its callers, but its result is not cached. Loads and saves decide
+    this under inFlight's lock for the id, so a value older than the save never stays cached.
+ */
 public class EmployeeDaoProxy implements EmployeeDao {
     private EmployeeDao employeeDao;
+    private MyHashMapCache<Integer, Employee> employeeCache;
+    private PolicyEngine policyEngine;
+    private final ConcurrentHashMap<Integer, CompletableFuture<Employee>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder collapsedCount = new LongAdder();
     EmployeeDaoProxy(EmployeeDao employeeDao) {
 
         this.employeeDao = employeeDao;
     }
+
+    // caches getEmployeeById results for ADMIN callers
+    EmployeeDaoProxy(EmployeeDao employeeDao, MyHashMapCache<Integer, Employee> employeeCache) {
+        this.employeeDao = employeeDao;
+        this.employeeCache = employeeCache;
+    }
+
+    // policyEngine decides who may call what instead of the ADMIN check; employeeCache may be null
+    EmployeeDaoProxy(EmployeeDao employeeDao, MyHashMapCache<Integer, Employee> employeeCache, PolicyEngine policyEngine) {
+        this.employeeDao = employeeDao;
+        this.employeeCache = employeeCache;
+        this.policyEngine = policyEngine;
+    }
+
     public void saveEmployee(Employee employee, String user) {
-        if("ADMIN".equals(user)) {
+        if(isAllowed(user, "saveEmployee")) {
             employeeDao.saveEmployee(employee, user);
+            if(employeeCache != null && employee.getId() != null) {
+                // detaches a running load of the id, so it won't cache what it read before the save
+                inFlight.compute(employee.getId(), (id, flight) -> {
+                    employeeCache.invalidate(id);
+                    return null;
+                });
+            }
         }
         else {
             System.out.println("Access denied");
@@ -16,7 +64,11 @@ public class EmployeeDaoProxy implements EmployeeDao {
     }
 
     public Employee getEmployeeById(Integer id, String user) {
-        if("ADMIN".equals(user)) {
+        if(isAllowed(user, "getEmployeeById")) {
+            if(employeeCache != null) {
+                Employee cached = employeeCache.get(id);
+                return cached != null ? cached : load(id, user);
+            }
             return employeeDao.getEmployeeById(id, user);
         }
         else {
@@ -24,4 +76,143 @@ public class EmployeeDaoProxy implements EmployeeDao {
             return null;
         }
     }
+
+    // batch lookups take part in the same single flight: ids another caller is loading are waited for
+    @Override
+    public Map<Integer, Employee> getEmployeesByIds(Collection<Integer> ids, String user) {
+        if(!isAllowed(user, "getEmployeesByIds")) {
+            System.out.println("Access denied");
+            return Map.of();
+        }
+        if(employeeCache == null) {
+            return employeeDao.getEmployeesByIds(ids, user);
+        }
+        Map<Integer, Employee> employees = new HashMap<>();
+        Map<Integer, CompletableFuture<Employee>> owned = new HashMap<>();
+        Map<Integer, CompletableFuture<Employee>> joined = new HashMap<>();
+        for(Integer id : ids) {
+            if(employees.containsKey(id) || owned.containsKey(id) || joined.containsKey(id)) {
+                continue;
+            }
+            Employee cached = employeeCache.get(id);
+            if(cached != null) {
+                employees.put(id, cached);
+                continue;
+            }
+            CompletableFuture<Employee> flight = new CompletableFuture<>();
+            CompletableFuture<Employee> running = inFlight.putIfAbsent(id, flight);
+            if(running != null) {
+                collapsedCount.increment();
+                joined.put(id, running);
+            }
+            else {
+                owned.put(id, flight);
+            }
+        }
+        if(!owned.isEmpty()) {
+            Map<Integer, Employee> loaded;
+            try {
+                loadCount.increment();
+                loaded = employeeDao.getEmployeesByIds(owned.keySet(), user);
+            } catch (Throwable e) {
+                // an Error too, or the flights would never complete and their waiters would hang
+                owned.forEach((id, flight) -> fail(id, flight, e));
+                throw e;
+            }
+            owned.forEach((id, flight) -> {
+                Employee employee = loaded.get(id);
+                complete(id, flight, employee);
+                if(employee != null) {
+                    employees.put(id, employee);
+                }
+            });
+        }
+        joined.forEach((id, flight) -> {
+            Employee employee = await(flight);
+            if(employee != null) {
+                employees.put(id, employee);
+            }
+        });
+        return employees;
+    }
+
+    @Override
+    public void saveEmployees(Collection<Employee> employees, String user) {
+        if(isAllowed(user, "saveEmployees")) {
+            employeeDao.saveEmployees(employees, user);
+            if(employeeCache != null) {
+                for(Employee employee : employees) {
+                    if(employee.getId() != null) {
+                        inFlight.compute(employee.getId(), (id, flight) -> {
+                            employeeCache.invalidate(id);
+                            return null;
+                        });
+                    }
+                }
+            }
+        }
+        else {
+            System.out.println("Access denied");
+        }
+    }
+
+    private boolean isAllowed(String user, String operation) {
+        return policyEngine != null ? policyEngine.isAllowed(user, operation) : "ADMIN".equals(user);
+    }
+
+    private Employee load(Integer id, String user) {
+        CompletableFuture<Employee> flight = new CompletableFuture<>();
+        CompletableFuture<Employee> running = inFlight.putIfAbsent(id, flight);
+        if(running != null) {
+            collapsedCount.increment();
+            return await(running);
+        }
+        Employee employee;
+        try {
+            loadCount.increment();
+            employee = employeeDao.getEmployeeById(id, user);
+        } catch (Throwable e) {
+            // an Error too, or the flight would never complete and its waiters would hang
+            fail(id, flight, e);
+            throw e;
+        }
+        complete(id, flight, employee);
+        return employee;
+    }
+
+    // caches employee unless a save detached flight while it was loading, then wakes its waiters
+    private void complete(Integer id, CompletableFuture<Employee> flight, Employee employee) {
+        inFlight.computeIfPresent(id, (key, current) -> {
+            if(current != flight) {
+                return current;
+            }
+            if(employee != null) {
+                employeeCache.put(key, employee);
+            }
+            return null;
+        });
+        flight.complete(employee);
+    }
+
+    private void fail(Integer id, CompletableFuture<Employee> flight, Throwable e) {
+        inFlight.remove(id, flight);
+        flight.completeExceptionally(e);
+    }
+
+    private static Employee await(CompletableFuture<Employee> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // cache counters together with the loads the proxy made and the callers that shared one
+    public EmployeeDaoProxyStats stats() {
+        return new EmployeeDaoProxyStats(employeeCache == null ? null : employeeCache.stats(), loadCount.sum(),
+                collapsedCount.sum());
+    }
 }
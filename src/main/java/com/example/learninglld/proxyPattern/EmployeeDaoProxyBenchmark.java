@@ -0,0 +1,116 @@
+package com.example.learninglld.proxyPattern;
+
+import com.example.learninglld.designHashMap.MyHashMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    EmployeeDaoProxy with and without a cache, in front of a stand-in EmployeeDao that takes
+    BACKEND_MILLIS per lookup:
+        herd     CALLERS virtual threads ask for the same, uncached id at once
+        skewed   CALLERS virtual threads each make REQUESTS lookups of ids drawn from a skewed
+                 distribution over IDS ids (a few ids are hot), with a cache of CACHE_SIZE
+    Reports the backend calls made (saves included), the wall time and the proxy's statistics.
+
+        java -cp target/classes com.example.learninglld.proxyPattern.EmployeeDaoProxyBenchmark
+ */
+public class EmployeeDaoProxyBenchmark {
+    private static final int CALLERS = 500;
+    private static final int REQUESTS = 200;
+    private static final int IDS = 10_000;
+    private static final int CACHE_SIZE = 1_000;
+    private static final long BACKEND_MILLIS = 2;
+
+    // stands in for a database: slow and counting its calls
+    static class SlowEmployeeDao implements EmployeeDao {
+        final AtomicLong calls = new AtomicLong();
+
+        @Override
+        public void saveEmployee(Employee employee, String user) {
+            calls.incrementAndGet();
+            LockSupport.parkNanos(BACKEND_MILLIS * 1_000_000);
+        }
+
+        @Override
+        public Employee getEmployeeById(Integer id, String user) {
+            calls.incrementAndGet();
+            LockSupport.parkNanos(BACKEND_MILLIS * 1_000_000);
+            return new Employee("employee " + id, id);
+        }
+    }
+
+    interface Caller {
+        void call(int caller) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for(boolean cached : new boolean[]{false, true}) {
+            SlowEmployeeDao backend = new SlowEmployeeDao();
+            EmployeeDaoProxy proxy = proxy(backend, cached);
+            long nanos = run(caller -> proxy.getEmployeeById(42, "ADMIN"));
+            report("herd", cached, backend, proxy, CALLERS, nanos);
+        }
+        for(boolean cached : new boolean[]{false, true}) {
+            SlowEmployeeDao backend = new SlowEmployeeDao();
+            EmployeeDaoProxy proxy = proxy(backend, cached);
+            long nanos = run(caller -> {
+                SplittableRandom random = new SplittableRandom(caller);
+                for(int i = 0; i < REQUESTS; i++) {
+                    proxy.getEmployeeById(skewedId(random), "ADMIN");
+                    if(i % 50 == 49) {
+                        // an occasional write invalidates its id
+                        int id = skewedId(random);
+                        proxy.saveEmployee(new Employee("employee " + id, id), "ADMIN");
+                    }
+                }
+            });
+            report("skewed", cached, backend, proxy, (long) CALLERS * REQUESTS, nanos);
+        }
+    }
+
+    static EmployeeDaoProxy proxy(EmployeeDao backend, boolean cached) {
+        if(!cached) {
+            return new EmployeeDaoProxy(backend);
+        }
+        return new EmployeeDaoProxy(backend, MyHashMapCache.<Integer, Employee>builder()
+                .setMaximumSize(CACHE_SIZE)
+                .setExpireAfterWrite(Duration.ofMinutes(1))
+                .build());
+    }
+
+    // about 80% of the lookups go to 1% of the ids
+    static int skewedId(SplittableRandom random) {
+        return random.nextInt(10) < 8 ? random.nextInt(IDS / 100) : random.nextInt(IDS);
+    }
+
+    static long run(Caller work) throws Exception {
+        long start = System.nanoTime();
+        try(ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < CALLERS; i++) {
+                int caller = i;
+                futures.add(callers.submit(() -> {
+                    work.call(caller);
+                    return null;
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    static void report(String name, boolean cached, SlowEmployeeDao backend, EmployeeDaoProxy proxy, long lookups, long nanos) {
+        System.out.printf("%-7s %-9s %,9d lookups  %,8d backend calls  %,8.0f ms  |  %s%n", name,
+                cached ? "cached" : "uncached", lookups, backend.calls.get(), nanos / 1e6, proxy.stats());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.learninglld.proxyPattern;
+
+import com.example.learninglld.designHashMap.MyHashMapCacheStats;
+
+public class EmployeeDaoProxyStats {
+    private final MyHashMapCacheStats cacheStats;
+    private final long loadCount;
+    private final long collapsedCount;
+
+    public EmployeeDaoProxyStats(MyHashMapCacheStats cacheStats, long loadCount, long collapsedCount) {
+        this.cacheStats = cacheStats;
+        this.loadCount = loadCount;
+        this.collapsedCount = collapsedCount;
+    }
+
+    // null when the proxy has no cache
+    public MyHashMapCacheStats getCacheStats() {
+        return cacheStats;
+    }
+
+    // calls to the wrapped EmployeeDao for cache misses
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    // cache misses answered by another caller's load of the same id
+    public long getCollapsedCount() {
+        return collapsedCount;
+    }
+
+    public double getHitRate() {
+        return cacheStats == null ? 0.0 : cacheStats.getHitRate();
+    }
+
+    @Override
+    public String toString() {
+        return (cacheStats == null ? "no cache" : cacheStats.toString()) + ", loads=" + loadCount + ", collapsed=" + collapsedCount;
+    }
+}
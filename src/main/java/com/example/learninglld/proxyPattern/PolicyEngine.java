@@ -0,0 +1,91 @@
+package com.example.learninglld.proxyPattern;
+
+import com.example.learninglld.designHashMap.MyHashMapCache;
+import com.example.learninglld.designHashMap.MyHashMapCacheStats;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Decides whether a principal may call an operation, from PolicyRules and a RoleDirectory.
+    The rules are compiled into a CompiledPolicy when they are loaded; decisions and the
+    directory's answers are cached for decisionTtl, in caches bounded to maximumDecisions
+    entries each (one per operation, one for principals).
+
+    load() swaps in a new compiled policy atomically. Calls already deciding finish with the
+    old rules; later calls use the new rules and start from empty caches.
+ */
+public class PolicyEngine {
+    private final RoleDirectory directory;
+    private final long maximumDecisions;
+    private final Duration decisionTtl;
+    private volatile CompiledPolicy policy;
+    private final LongAdder directoryLookups = new LongAdder();
+
+    PolicyEngine(PolicyEngineBuilder builder) {
+        this.directory = builder.directory;
+        this.maximumDecisions = builder.maximumDecisions;
+        this.decisionTtl = builder.decisionTtl;
+        this.policy = new CompiledPolicy(this, builder.rules);
+    }
+
+    public static PolicyEngineBuilder builder(RoleDirectory directory) {
+        return new PolicyEngineBuilder(directory);
+    }
+
+    public boolean isAllowed(String principal, String operation) {
+        return principal != null && policy.operation(operation).isAllowed(principal);
+    }
+
+    public void load(List<PolicyRule> rules) {
+        policy = new CompiledPolicy(this, rules);
+    }
+
+    // the compiled form of operation, for callers that check it repeatedly; stale once new rules are loaded
+    CompiledPolicy.OperationPolicy operation(String operation) {
+        return policy.operation(operation);
+    }
+
+    boolean isCurrent(CompiledPolicy.OperationPolicy operation) {
+        return operation.policy == policy;
+    }
+
+    // decision cache counters, summed over the operations of the current rules
+    public MyHashMapCacheStats stats() {
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        long expired = 0;
+        for(CompiledPolicy.OperationPolicy operation : policy.operations()) {
+            MyHashMapCacheStats stats = operation.decisions().stats();
+            hits += stats.getHitCount();
+            misses += stats.getMissCount();
+            evictions += stats.getEvictionCount();
+            expired += stats.getExpiredCount();
+        }
+        return new MyHashMapCacheStats(hits, misses, evictions, expired);
+    }
+
+    // principals looked up in the RoleDirectory
+    public long getDirectoryLookupCount() {
+        return directoryLookups.sum();
+    }
+
+    String lookUpTenant(String principal) {
+        return directory.tenantOf(principal);
+    }
+
+    Set<String> lookUpRoles(String principal) {
+        directoryLookups.increment();
+        return directory.rolesOf(principal);
+    }
+
+    <V> MyHashMapCache<String, V> newCache() {
+        return MyHashMapCache.<String, V>builder()
+                .setMaximumSize(maximumDecisions)
+                .setExpireAfterWrite(decisionTtl)
+                .build();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.learninglld.proxyPattern;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PolicyEngineBuilder {
+    final RoleDirectory directory;
+    final List<PolicyRule> rules = new ArrayList<>();
+    long maximumDecisions = 10_000;
+    Duration decisionTtl = Duration.ofMinutes(1);
+
+    PolicyEngineBuilder(RoleDirectory directory) {
+        this.directory = directory;
+    }
+
+    public PolicyEngineBuilder addRule(PolicyRule rule) {
+        this.rules.add(rule);
+        return this;
+    }
+
+    public PolicyEngineBuilder addRules(List<PolicyRule> rules) {
+        this.rules.addAll(rules);
+        return this;
+    }
+
+    // entries kept per operation's decision cache, and in the cache of principals
+    public PolicyEngineBuilder setMaximumDecisions(long maximumDecisions) {
+        this.maximumDecisions = maximumDecisions;
+        return this;
+    }
+
+    // how long a decision, and what the directory said about a principal, is trusted
+    public PolicyEngineBuilder setDecisionTtl(Duration decisionTtl) {
+        this.decisionTtl = decisionTtl;
+        return this;
+    }
+
+    public PolicyEngine build() {
+        if(directory == null) {
+            throw new IllegalStateException("directory must be set");
+        }
+        if(maximumDecisions <= 0) {
+            throw new IllegalStateException("maximumDecisions must be positive: " + maximumDecisions);
+        }
+        if(decisionTtl == null || decisionTtl.isNegative() || decisionTtl.isZero()) {
+            throw new IllegalStateException("decisionTtl must be positive: " + decisionTtl);
+        }
+        return new PolicyEngine(this);
+    }
+}
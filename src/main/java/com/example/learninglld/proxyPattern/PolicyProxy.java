@@ -0,0 +1,113 @@
+package com.example.learninglld.proxyPattern;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Protection proxy for any interface, generated with java.lang.reflect.Proxy. Every call is
+    checked with a PolicyEngine before it reaches the target: the operation is the method name,
+    the principal the parameter marked @Principal or else the last String parameter. A call that
+    is not allowed throws SecurityException.
+
+    What each method needs is worked out on its first call and kept in a Guard: the principal's
+    position and the compiled OperationPolicy, so a checked call costs a cached decision lookup
+    and the reflective call itself.
+ */
+public final class PolicyProxy implements InvocationHandler {
+    private final Object target;
+    private final PolicyEngine engine;
+    private final ConcurrentHashMap<Method, Guard> guards = new ConcurrentHashMap<>();
+
+    private final class Guard {
+        final String operation;
+        // -1 if the method has no principal; such calls are denied
+        final int principalIndex;
+        // replaced when the engine loads new rules
+        CompiledPolicy.OperationPolicy compiled;
+
+        Guard(Method method) {
+            this.operation = method.getName();
+            this.principalIndex = principalIndex(method);
+            this.compiled = engine.operation(operation);
+        }
+
+        boolean isAllowed(Object[] args) {
+            if(principalIndex < 0 || args[principalIndex] == null) {
+                return false;
+            }
+            CompiledPolicy.OperationPolicy current = compiled;
+            if(!engine.isCurrent(current)) {
+                current = engine.operation(operation);
+                compiled = current;
+            }
+            return current.isAllowed((String) args[principalIndex]);
+        }
+    }
+
+    private PolicyProxy(Object target, PolicyEngine engine) {
+        this.target = target;
+        this.engine = engine;
+    }
+
+    public static <T> T create(Class<T> type, T target, PolicyEngine engine) {
+        if(!type.isInterface()) {
+            throw new IllegalArgumentException(type.getName() + " is not an interface");
+        }
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new PolicyProxy(target, engine)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // equals, hashCode and toString are not operations; a proxy is equal only to itself
+        if(method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> call(method, args);
+            };
+        }
+        Guard guard = guards.get(method);
+        if(guard == null) {
+            guard = guards.computeIfAbsent(method, Guard::new);
+        }
+        if(!guard.isAllowed(args)) {
+            throw new SecurityException("Access denied: " + (guard.principalIndex < 0 ? "no principal" : args[guard.principalIndex])
+                    + " may not call " + guard.operation);
+        }
+        return call(method, args);
+    }
+
+    // calls target, throwing what the method threw rather than InvocationTargetException
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int principalIndex(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for(int i = 0; i < annotations.length; i++) {
+            for(Annotation annotation : annotations[i]) {
+                if(annotation instanceof Principal) {
+                    if(method.getParameterTypes()[i] != String.class) {
+                        throw new IllegalArgumentException("@Principal parameter of " + method + " is not a String");
+                    }
+                    return i;
+                }
+            }
+        }
+        Class<?>[] types = method.getParameterTypes();
+        for(int i = types.length - 1; i >= 0; i--) {
+            if(types[i] == String.class) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.learninglld.proxyPattern;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+    Cost of an authorization check per call, on a DAO that does no work itself:
+        direct          the DAO, unchecked
+        admin check     EmployeeDaoProxy comparing the user with "ADMIN"
+        engine          EmployeeDaoProxy asking a PolicyEngine
+        policy proxy    PolicyProxy, the java.lang.reflect.Proxy built for EmployeeDao
+    Callers are PRINCIPALS principals from TENANTS tenants, all allowed, so after warm-up every
+    decision is cached. The last run uses an engine whose caches hold a tenth of the principals,
+    to show what a miss costs when the directory takes DIRECTORY_MICROS per lookup.
+
+        java -cp target/classes com.example.learninglld.proxyPattern.PolicyProxyBenchmark
+ */
+public class PolicyProxyBenchmark {
+    private static final int PRINCIPALS = 1_000;
+    private static final int TENANTS = 10;
+    private static final int CALLS = 20_000_000;
+    private static final int ROUNDS = 5;
+    private static final int UNCACHED_CALLS = 20_000;
+    private static final long DIRECTORY_MICROS = 20;
+
+    static class NoOpEmployeeDao implements EmployeeDao {
+        private final Employee employee = new Employee("employee", 1);
+
+        @Override
+        public void saveEmployee(Employee employee, String user) {
+        }
+
+        @Override
+        public Employee getEmployeeById(Integer id, String user) {
+            return employee;
+        }
+    }
+
+    // principal i is in tenant i % TENANTS; every tenth principal is an ADMIN, the others READERs
+    static class GeneratedDirectory implements RoleDirectory {
+        private final long lookupNanos;
+
+        GeneratedDirectory(long lookupNanos) {
+            this.lookupNanos = lookupNanos;
+        }
+
+        @Override
+        public String tenantOf(String principal) {
+            return "tenant-" + index(principal) % TENANTS;
+        }
+
+        @Override
+        public Set<String> rolesOf(String principal) {
+            if(lookupNanos > 0) {
+                LockSupport.parkNanos(lookupNanos);
+            }
+            return Set.of(index(principal) % 10 == 0 ? "ADMIN" : "READER");
+        }
+
+        private static int index(String principal) {
+            return Integer.parseInt(principal.substring(principal.indexOf('-') + 1));
+        }
+    }
+
+    public static void main(String[] args) {
+        String[] principals = new String[PRINCIPALS];
+        for(int i = 0; i < PRINCIPALS; i++) {
+            principals[i] = "user-" + i;
+        }
+        // the admin check only lets "ADMIN" in; give it that user so it does the same work
+        String[] admins = new String[PRINCIPALS];
+        Arrays.fill(admins, "ADMIN");
+
+        List<PolicyRule> rules = List.of(
+                PolicyRule.allow(PolicyRule.ANY, PolicyRule.ANY, "ADMIN"),
+                PolicyRule.allow(PolicyRule.ANY, "getEmployeeById", "READER"),
+                PolicyRule.deny("tenant-3", "saveEmployee", "ADMIN"));
+        PolicyEngine engine = PolicyEngine.builder(new GeneratedDirectory(0))
+                .addRules(rules)
+                .setMaximumDecisions(PRINCIPALS * 2)
+                .build();
+
+        NoOpEmployeeDao target = new NoOpEmployeeDao();
+        EmployeeDao adminCheck = new EmployeeDaoProxy(target);
+        EmployeeDao engineCheck = new EmployeeDaoProxy(target, null, engine);
+        EmployeeDao policyProxy = PolicyProxy.create(EmployeeDao.class, target, engine);
+
+        for(int round = 0; round < ROUNDS; round++) {
+            boolean last = round == ROUNDS - 1;
+            report("direct", run(target, principals, CALLS), last);
+            report("admin check", run(adminCheck, admins, CALLS), last);
+            report("engine", run(engineCheck, principals, CALLS), last);
+            report("policy proxy", run(policyProxy, principals, CALLS), last);
+        }
+        System.out.println("engine  " + engine.stats() + ", " + engine.getDirectoryLookupCount() + " directory lookups");
+
+        PolicyEngine small = PolicyEngine.builder(new GeneratedDirectory(DIRECTORY_MICROS * 1_000))
+                .addRules(rules)
+                .setMaximumDecisions(PRINCIPALS / 10)
+                .setDecisionTtl(Duration.ofMinutes(1))
+                .build();
+        EmployeeDao missing = PolicyProxy.create(EmployeeDao.class, target, small);
+        report("proxy, misses", run(missing, principals, UNCACHED_CALLS), true);
+        System.out.println("small   " + small.stats() + ", " + small.getDirectoryLookupCount() + " directory lookups");
+    }
+
+    static double run(EmployeeDao dao, String[] principals, int calls) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for(int i = 0; i < calls; i++) {
+            sink += dao.getEmployeeById(i, principals[i % principals.length]) != null ? 1 : 0;
+        }
+        long nanos = System.nanoTime() - start;
+        if(sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return (double) nanos / calls;
+    }
+
+    static void report(String name, double nanosPerCall, boolean print) {
+        if(print) {
+            System.out.printf("%-14s %,9.1f ns/call%n", name, nanosPerCall);
+        }
+    }
+}
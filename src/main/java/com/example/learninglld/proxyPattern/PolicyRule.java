@@ -0,0 +1,56 @@
+package com.example.learninglld.proxyPattern;
+
+/*
+    One authorization rule: principals of tenant holding role may, or may not, call operation.
+    tenant and operation can be ANY. A DENY that matches wins over any ALLOW, and a call no
+    ALLOW matches is denied.
+ */
+public final class PolicyRule {
+    public static final String ANY = "*";
+
+    public enum Effect { ALLOW, DENY }
+
+    private final Effect effect;
+    private final String tenant;
+    private final String operation;
+    private final String role;
+
+    private PolicyRule(Effect effect, String tenant, String operation, String role) {
+        if(tenant == null || operation == null || role == null) {
+            throw new IllegalArgumentException("tenant, operation and role must not be null");
+        }
+        this.effect = effect;
+        this.tenant = tenant;
+        this.operation = operation;
+        this.role = role;
+    }
+
+    public static PolicyRule allow(String tenant, String operation, String role) {
+        return new PolicyRule(Effect.ALLOW, tenant, operation, role);
+    }
+
+    public static PolicyRule deny(String tenant, String operation, String role) {
+        return new PolicyRule(Effect.DENY, tenant, operation, role);
+    }
+
+    public Effect getEffect() {
+        return effect;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public String toString() {
+        return effect + " " + role + "@" + tenant + " " + operation;
+    }
+}
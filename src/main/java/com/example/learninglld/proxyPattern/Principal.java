@@ -0,0 +1,12 @@
+package com.example.learninglld.proxyPattern;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// marks the parameter PolicyProxy checks; without it, the method's last String parameter is the principal
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Principal {
+}
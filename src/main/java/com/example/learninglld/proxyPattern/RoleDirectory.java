@@ -0,0 +1,10 @@
+package com.example.learninglld.proxyPattern;
+
+import java.util.Set;
+
+// where PolicyEngine finds out who a principal is, e.g. an LDAP or identity service; may be slow
+public interface RoleDirectory {
+    String tenantOf(String principal);
+
+    Set<String> rolesOf(String principal);
+}
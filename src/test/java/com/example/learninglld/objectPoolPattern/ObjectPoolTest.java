@@ -0,0 +1,98 @@
+package com.example.learninglld.objectPoolPattern;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ObjectPoolTest {
+
+    /*
+        A release finds a waiter queued, takes the object for it, and then finds the queue empty
+        because the waiter timed out. Before it puts the object back, a new borrower queues up and
+        finds nothing free. The release has to notice that borrower and serve it.
+     */
+    @Test
+    void releaseServesBorrowerQueuedWhileItHeldTheObject() throws Exception {
+        ObjectPool<Object> pool = ObjectPool.builder(Object::new)
+                .setMaxSize(1)
+                .setThreadLocalCacheSize(0)
+                .setAcquireTimeout(Duration.ofSeconds(5))
+                .build();
+        PooledObject<Object> held = pool.borrow();
+
+        Thread timedOut = new Thread(() -> assertThrows(ObjectPoolTimeoutException.class,
+                () -> pool.borrow(200, TimeUnit.MILLISECONDS)));
+        timedOut.start();
+        awaitWaiting(pool, 1);
+
+        AtomicReference<PooledObject<Object>> served = new AtomicReference<>();
+        Thread late = new Thread(() -> {
+            try {
+                served.set(pool.borrow(2, TimeUnit.SECONDS));
+            } catch (ObjectPoolTimeoutException | InterruptedException e) {
+                // left unset; the assertion below reports it
+            }
+        });
+        Thread releaser = Thread.currentThread();
+        setWaiters(pool, new ConcurrentLinkedQueue<>() {
+            private boolean armed = true;
+
+            @Override
+            public CompletableFuture<PooledObject<Object>> poll() {
+                if(!armed || Thread.currentThread() != releaser) {
+                    return super.poll();
+                }
+                armed = false;
+                // the queued waiter times out after the release took the object for it
+                join(timedOut);
+                CompletableFuture<PooledObject<Object>> waiter = super.poll();
+                // and a borrower queues up before the object is back
+                late.start();
+                awaitWaiting(pool, 1);
+                while(late.getState() != Thread.State.TIMED_WAITING) {
+                    Thread.onSpinWait();
+                }
+                return waiter;
+            }
+        });
+
+        pool.release(held);
+        late.join();
+        assertNotNull(served.get(), "borrower timed out while an object was idle");
+        assertEquals(0, pool.getWaiting());
+    }
+
+    private static void setWaiters(ObjectPool<Object> pool, ConcurrentLinkedQueue<CompletableFuture<PooledObject<Object>>> waiters)
+            throws ReflectiveOperationException {
+        Field field = ObjectPool.class.getDeclaredField("waiters");
+        field.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<CompletableFuture<PooledObject<Object>>> current =
+                (ConcurrentLinkedQueue<CompletableFuture<PooledObject<Object>>>) field.get(pool);
+        waiters.addAll(current);
+        field.set(pool, waiters);
+    }
+
+    private static void awaitWaiting(ObjectPool<Object> pool, int waiting) {
+        while(pool.getWaiting() != waiting) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}